@@ -0,0 +1,42 @@
+package benchmark;
+
+import chess.ChessBoard;
+import chess.Fen;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copying, comparing and hashing the board of {@link Positions#MIDDLEGAME}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+    private ChessBoard board;
+    private ChessBoard equalBoard;
+
+    @Setup
+    public void setup() {
+        board = Fen.parse(Positions.MIDDLEGAME).getBoard();
+        equalBoard = Fen.parse(Positions.MIDDLEGAME).getBoard();
+    }
+
+    @Benchmark
+    public ChessBoard copy() {
+        return board.copy();
+    }
+
+    @Benchmark
+    public boolean equalBoards() {
+        return board.equals(equalBoard);
+    }
+
+    @Benchmark
+    public int boardHashCode() {
+        return board.hashCode();
+    }
+}
@@ -0,0 +1,48 @@
+package benchmark;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pseudo-legal move generation for every piece on a full board, which is dominated by the
+ * move calculators walking their target and ray tables.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FullBoardMovesBenchmark {
+    @Param({"STARTING_POSITION", "MIDDLEGAME"})
+    public String position;
+
+    private final int[] moves = new int[ChessGame.MAX_MOVES];
+    private ChessBoard board;
+    private int[] squares;
+    private ChessPiece[] pieces;
+
+    @Setup
+    public void setup() {
+        board = Fen.parse(position.equals("MIDDLEGAME") ? Positions.MIDDLEGAME : Fen.STARTING_POSITION).getBoard();
+        long occupancy = board.getOccupancy();
+        squares = new int[Long.bitCount(occupancy)];
+        pieces = new ChessPiece[squares.length];
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = Long.numberOfTrailingZeros(occupancy);
+            pieces[i] = board.getPiece(squares[i]);
+            occupancy &= occupancy - 1;
+        }
+    }
+
+    @Benchmark
+    public int pieceMovesForEveryPiece() {
+        int count = 0;
+        for (int i = 0; i < squares.length; i++) {
+            count = pieces[i].pieceMoves(board, squares[i], moves, count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,79 @@
+package benchmark;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legal move generation, move making and game status checks on {@link Positions#MIDDLEGAME}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    private final int[] moves = new int[ChessGame.MAX_MOVES];
+    private ChessGame game;
+    private ChessGame checkmatedGame;
+    private ChessPosition queenPosition;
+    private ChessMove capture;
+    private int packedCapture;
+
+    @Setup
+    public void setup() throws InvalidMoveException {
+        game = Fen.parse(Positions.MIDDLEGAME);
+        checkmatedGame = Fen.parse(Positions.CHECKMATE);
+        queenPosition = new ChessPosition(2, 5);
+        // knight on f3 takes the pawn on e5
+        capture = new ChessMove(new ChessPosition(3, 6), new ChessPosition(5, 5), null);
+        packedCapture = PackedMove.encode(capture);
+        // fail fast if the position changes and the move is no longer legal
+        game.copy().makeMove(capture);
+    }
+
+    @Benchmark
+    public Collection<ChessMove> validMoves() {
+        return game.validMoves(queenPosition);
+    }
+
+    @Benchmark
+    public int validMovesForTeamIntoBuffer() {
+        return game.validMoves(ChessGame.TeamColor.WHITE, moves, 0);
+    }
+
+    /**
+     * Includes the cost of copying the game, since makeMove cannot be undone through ChessGame
+     */
+    @Benchmark
+    public ChessGame makeMove() throws InvalidMoveException {
+        ChessGame copy = game.copy();
+        copy.makeMove(capture);
+        return copy;
+    }
+
+    @Benchmark
+    public ChessBoard makeAndUnmakeMove() {
+        ChessBoard board = game.getBoard();
+        board.unmakeMove(board.makeMove(packedCapture));
+        return board;
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return game.isInCheck(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInCheckmateNotInCheck() {
+        return game.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return checkmatedGame.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+}
@@ -0,0 +1,53 @@
+package benchmark;
+
+import chess.*;
+import movecalculators.MoveCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pseudo-legal move generation for a single piece of each type in {@link Positions#MIDDLEGAME}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+    @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+    public ChessPiece.PieceType type;
+
+    private final int[] moves = new int[MoveCalculator.MAX_PIECE_MOVES];
+    private ChessBoard board;
+    private ChessPiece piece;
+    private ChessPosition position;
+    private int square;
+
+    @Setup
+    public void setup() {
+        board = Fen.parse(Positions.MIDDLEGAME).getBoard();
+        position = switch (type) {
+            case KING -> new ChessPosition(1, 7);
+            case QUEEN -> new ChessPosition(2, 5);
+            case BISHOP -> new ChessPosition(4, 3);
+            case KNIGHT -> new ChessPosition(3, 6);
+            case ROOK -> new ChessPosition(1, 1);
+            case PAWN -> new ChessPosition(2, 2);
+        };
+        piece = board.getPiece(position);
+        square = Bitboards.square(position.getRow(), position.getColumn());
+    }
+
+    @Benchmark
+    public Collection<ChessMove> pieceMoves() {
+        return piece.pieceMoves(board, position);
+    }
+
+    @Benchmark
+    public int pieceMovesIntoBuffer() {
+        return piece.pieceMoves(board, square, moves, 0);
+    }
+}
@@ -0,0 +1,19 @@
+package benchmark;
+
+/**
+ * Positions shared by the benchmarks.
+ */
+final class Positions {
+    /**
+     * A quiet middlegame with every piece type still on the board, white to move
+     */
+    static final String MIDDLEGAME = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    /**
+     * Fool's mate: white is checkmated, so checkmate detection has to search every white move
+     */
+    static final String CHECKMATE = "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w - - 1 3";
+
+    private Positions() {
+    }
+}
@@ -1,5 +1,6 @@
 package ui.model;
 
+import model.GameSummary;
 import model.request.CreateRequest;
 import model.request.JoinRequest;
 import model.request.LoginRequest;
@@ -8,6 +9,9 @@ import model.result.CreateResult;
 import model.result.ListGamesResult;
 import model.result.LoginResult;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
 public class ServerFacade {
     private final String serverUrl = "http://localhost:8080";
     private final HTTPCommunicator httpCommunicator = new HTTPCommunicator(serverUrl);
@@ -28,8 +32,22 @@ public class ServerFacade {
         return httpCommunicator.sendRequest(CreateResult.class, "POST", "/game", req, authToken);
     }
 
-    public ListGamesResult listGames(String authToken) throws HttpResponseException {
-        return httpCommunicator.sendRequest(ListGamesResult.class, "GET", "/game", authToken);
+    /**
+     * @param status only list games with this status, or every game if null
+     * @param cursor the nextCursor of the previous page, or null for the first page
+     */
+    public ListGamesResult listGames(String authToken, GameSummary.Status status, String cursor)
+            throws HttpResponseException {
+        StringBuilder path = new StringBuilder("/game");
+        char separator = '?';
+        if (status != null) {
+            path.append(separator).append("status=").append(status.name());
+            separator = '&';
+        }
+        if (cursor != null) {
+            path.append(separator).append("cursor=").append(URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+        }
+        return httpCommunicator.sendRequest(ListGamesResult.class, "GET", path.toString(), authToken);
     }
 
     public void observeGame(int gameID) throws HttpResponseException {
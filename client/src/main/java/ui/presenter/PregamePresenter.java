@@ -2,7 +2,7 @@ package ui.presenter;
 
 import chess.ChessBoard;
 import chess.ChessGame;
-import model.GameData;
+import model.GameSummary;
 import model.request.CreateRequest;
 import model.request.JoinRequest;
 import model.result.CreateResult;
@@ -19,7 +19,10 @@ import java.util.Map;
 public class PregamePresenter extends Presenter {
     private final ServerFacade serverFacade = new ServerFacade();
     private final PregameView view;
-    private Map<Integer, GameData> gamesList = new HashMap<>();
+    private Map<Integer, GameSummary> gamesList = new HashMap<>();
+    // the filter and cursor of the next page of games, if there is one
+    private GameSummary.Status gamesFilter;
+    private String nextGamesCursor;
 
     public PregamePresenter(PregameView view) {
         this.view = view;
@@ -30,7 +33,8 @@ public class PregamePresenter extends Presenter {
         String[] args = input.split(" ");
         String helpString = """
                 (c)reate <game name> - create a new game
-                (g)ames - list all the games
+                (g)ames [open|playing|finished] - list the games, or only the ones in that state
+                (m)ore - list more games
                 (p)lay <game number> <color> - play a game
                 (o)bserve <game number> - observe a game
                 (l)ogout - logout
@@ -38,7 +42,8 @@ public class PregamePresenter extends Presenter {
                 """;
         switch (args[0]) {
             case "create", "c" -> createGame(args);
-            case "games", "g" -> listGames();
+            case "games", "g" -> listGames(args);
+            case "more", "m" -> listMoreGames();
             case "play", "p" -> joinGame(args);
             case "observe", "o" -> observeGame(args);
             case "logout", "l" -> logout();
@@ -56,43 +61,89 @@ public class PregamePresenter extends Presenter {
         try {
             CreateResult result = serverFacade.createGame(new CreateRequest(args[1]), view.getAuthToken());
             view.displayMessage("Game created successfully!");
-            listGames();
+            listGames(new String[]{"games"});
         } catch (HttpResponseException ex) {
             view.displayMessage(getErrorMessage(ex));
         }
     }
 
-    private void listGames() {
+    private void listGames(String[] args) {
+        if (args.length > 2) {
+            view.displayMessage("input did not match expected format: (g)ames [open|playing|finished]");
+            return;
+        }
+
+        GameSummary.Status filter = null;
+        if (args.length == 2) {
+            filter = switch (args[1].toLowerCase(Locale.ROOT)) {
+                case "open" -> GameSummary.Status.OPEN;
+                case "playing" -> GameSummary.Status.IN_PROGRESS;
+                case "finished" -> GameSummary.Status.FINISHED;
+                default -> null;
+            };
+            if (filter == null) {
+                view.displayMessage("input did not match expected format: (g)ames [open|playing|finished]");
+                return;
+            }
+        }
+
+        gamesList.clear();
+        gamesFilter = filter;
+        nextGamesCursor = null;
+        loadGamesPage();
+    }
+
+    private void listMoreGames() {
+        if (nextGamesCursor == null) {
+            view.displayMessage("There are no more games to list.");
+            return;
+        }
+        loadGamesPage();
+    }
+
+    private void loadGamesPage() {
         try {
-            ListGamesResult result = serverFacade.listGames(view.getAuthToken());
-            updateGamesList(result.games());
-            displayGamesList();
+            ListGamesResult result = serverFacade.listGames(view.getAuthToken(), gamesFilter, nextGamesCursor);
+            int firstNumber = gamesList.size() + 1;
+            addToGamesList(result.games());
+            nextGamesCursor = result.nextCursor();
+            displayGamesList(firstNumber);
         } catch (HttpResponseException ex) {
             view.displayMessage(getErrorMessage(ex));
         }
     }
 
-    private void updateGamesList(List<GameData> games) {
-        gamesList.clear();
-        for (int i = 1; i <= games.size(); i++) {
-            gamesList.put(i, games.get(i - 1));
+    private void addToGamesList(List<GameSummary> games) {
+        for (GameSummary game : games) {
+            gamesList.put(gamesList.size() + 1, game);
         }
     }
 
-    private void displayGamesList() {
+    private void displayGamesList(int firstNumber) {
         if (gamesList.size() == 0) {
             view.displayMessage("There are no games yet.");
             return;
         }
 
-        for (int i = 1; i <= gamesList.size(); i++) {
-            GameData game = gamesList.get(i);
+        for (int i = firstNumber; i <= gamesList.size(); i++) {
+            GameSummary game = gamesList.get(i);
             String gameName = game.gameName();
             String whiteUsername = (game.whiteUsername() != null ? game.whiteUsername() : "empty");
             String blackUsername = (game.blackUsername() != null ? game.blackUsername() : "empty");
-            view.displayMessage(i + ": " + gameName);
+            view.displayMessage(i + ": " + gameName + " (" + describeStatus(game.status()) + ")");
             view.displayMessage("\tWhite: " + whiteUsername + "\n\tBlack: " + blackUsername);
         }
+        if (nextGamesCursor != null) {
+            view.displayMessage("Type (m)ore to list more games.");
+        }
+    }
+
+    private String describeStatus(GameSummary.Status status) {
+        return switch (status) {
+            case OPEN -> "open";
+            case IN_PROGRESS -> "playing";
+            case FINISHED -> "finished";
+        };
     }
 
     private void joinGame(String[] args) {
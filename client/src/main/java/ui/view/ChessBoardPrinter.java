@@ -15,12 +15,12 @@ public class ChessBoardPrinter {
         if (perspective == BLACK) {
             for (int row = 1; row <= 8; row += 2) {
                 for (int col = 8; col >= 1; col--) {
-                    printSquare(board.getPiece(new ChessPosition(row, col)), (col % 2 == 0 ? WHITE : BLACK));
+                    printSquare(board.getPiece(ChessPosition.of(row, col)), (col % 2 == 0 ? WHITE : BLACK));
                 }
                 print(SET_BG_COLOR_DARK_GREY);
                 print(" " + row + " \n");
                 for (int col = 8; col >= 1; col--) {
-                    printSquare(board.getPiece(new ChessPosition(row + 1, col)), (col % 2 == 0 ? BLACK : WHITE));
+                    printSquare(board.getPiece(ChessPosition.of(row + 1, col)), (col % 2 == 0 ? BLACK : WHITE));
                 }
                 print(SET_BG_COLOR_DARK_GREY);
                 print(" " + (row + 1) + " \n");
@@ -29,13 +29,13 @@ public class ChessBoardPrinter {
         } else {
             for (int row = 8; row >= 1; row -= 2) {
                 for (int col = 1; col <= 8; col++) {
-                    printSquare(board.getPiece(new ChessPosition(row, col)), (col % 2 == 0 ? BLACK : WHITE));
+                    printSquare(board.getPiece(ChessPosition.of(row, col)), (col % 2 == 0 ? BLACK : WHITE));
                 }
                 print(SET_BG_COLOR_DARK_GREY);
                 print(" " + row + " \n");
 
                 for (int col = 1; col <= 8; col++) {
-                    printSquare(board.getPiece(new ChessPosition(row - 1, col)), (col % 2 == 0 ? WHITE : BLACK));
+                    printSquare(board.getPiece(ChessPosition.of(row - 1, col)), (col % 2 == 0 ? WHITE : BLACK));
                 }
                 print(SET_BG_COLOR_DARK_GREY);
                 print(" " + (row - 1) + " \n");
@@ -0,0 +1,188 @@
+package dataaccess;
+
+import chess.ChessMove;
+import model.GameData;
+import model.GameSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the games that have connected websocket sessions in memory, in front of another GameDao.
+ * <p>
+ * A game is loaded when it is first pinned and evicted when it is unpinned as many times as it was
+ * pinned. Games are loaded without holding a lock, so pinning one game never waits on loading
+ * another. Reads of a pinned game never reach the underlying DAO, and writes go to the underlying
+ * DAO before the cached copy is replaced, so the cache never holds a game that was not stored. The
+ * underlying DAO rejects updates made from an old version, so concurrent updates are never lost;
+ * when it does, the cached game is reloaded so the caller can retry from the stored version.
+ * Callers must not modify a game they read; they should update a copy instead.
+ * <p>
+ * Each game's status is evaluated on the thread that loads or updates it, before the game is shared,
+ * so the DAOs behind the cache and the lobby only ever read the memoized status.
+ */
+public class ActiveGameCache implements GameDao {
+    private final GameDao delegate;
+    private final Map<Integer, CachedGame> games = new ConcurrentHashMap<>();
+
+    public ActiveGameCache(GameDao delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Loads a game into the cache if it is not already there, and keeps it there until a matching call to unpin
+     *
+     * @return the game, or null if it does not exist (in which case it is not pinned)
+     */
+    public GameData pin(int gameID) throws DataAccessException {
+        // the entry is created before the game is loaded, so an update made while it loads is not missed
+        CachedGame cached = games.compute(gameID, (_, entry) -> {
+            CachedGame pinned = entry == null ? new CachedGame() : entry;
+            pinned.pins++;
+            return pinned;
+        });
+        GameData game = cached.game;
+        if (game == null) {
+            GameData loaded;
+            try {
+                loaded = delegate.getGame(gameID);
+            } catch (DataAccessException ex) {
+                unpin(gameID);
+                throw ex;
+            }
+            if (loaded == null) {
+                unpin(gameID);
+                return null;
+            }
+            game = cached.offer(withStatus(loaded));
+        }
+        return game;
+    }
+
+    public void unpin(int gameID) {
+        games.computeIfPresent(gameID, (_, cached) -> --cached.pins <= 0 ? null : cached);
+    }
+
+    @Override
+    public List<GameData> getGames() throws DataAccessException {
+        List<GameData> result = new ArrayList<>();
+        for (GameData game : delegate.getGames()) {
+            GameData cached = cachedGame(game.gameID());
+            result.add(cached == null ? game : cached);
+        }
+        return result;
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        GameData cached = cachedGame(gameID);
+        return cached == null ? delegate.getGame(gameID) : cached;
+    }
+
+    /**
+     * Lists games from the underlying DAO, which every update is written to before it is cached
+     */
+    @Override
+    public List<GameSummary> listGames(GameSummary.Status status, int afterGameID, int limit)
+            throws DataAccessException {
+        return delegate.listGames(status, afterGameID, limit);
+    }
+
+    @Override
+    public int createGame(String gameName) throws DataAccessException {
+        return delegate.createGame(gameName);
+    }
+
+    @Override
+    public void updateGame(GameData gameData) throws DataAccessException {
+        try {
+            delegate.updateGame(withStatus(gameData));
+        } catch (ConcurrentUpdateException ex) {
+            reloadCached(gameData.gameID(), ex);
+            throw ex;
+        }
+        replaceCached(gameData);
+    }
+
+    @Override
+    public void recordMove(GameData gameData, ChessMove move) throws DataAccessException {
+        try {
+            delegate.recordMove(withStatus(gameData), move);
+        } catch (ConcurrentUpdateException ex) {
+            reloadCached(gameData.gameID(), ex);
+            throw ex;
+        }
+        replaceCached(gameData);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        delegate.clear();
+        games.clear();
+    }
+
+    /**
+     * @return the cached game, or null if it is not cached or is still being loaded
+     */
+    private GameData cachedGame(int gameID) {
+        CachedGame cached = games.get(gameID);
+        return cached == null ? null : cached.game;
+    }
+
+    /**
+     * Memoizes the game's status on the calling thread, which owns the game until it is handed on
+     */
+    private static GameData withStatus(GameData gameData) {
+        gameData.game().evaluateStatus();
+        return gameData;
+    }
+
+    private void replaceCached(GameData gameData) {
+        CachedGame cached = games.get(gameData.gameID());
+        if (cached != null) {
+            cached.offer(gameData);
+        }
+    }
+
+    /**
+     * Replaces a cached game with the stored one after an update made from the cached version was
+     * rejected, since the cached version would be rejected again on every retry. If the game cannot
+     * be reloaded, the failure is added to the rejection and the next rejection tries again.
+     */
+    private void reloadCached(int gameID, ConcurrentUpdateException rejection) {
+        CachedGame cached = games.get(gameID);
+        if (cached == null || cached.game == null) {
+            return;
+        }
+        try {
+            GameData stored = delegate.getGame(gameID);
+            if (stored != null) {
+                cached.offer(withStatus(stored));
+            }
+        } catch (DataAccessException ex) {
+            rejection.addSuppressed(ex);
+        }
+    }
+
+    private static class CachedGame {
+        // null until the game has been loaded
+        private volatile GameData game;
+        // only changed inside the map's compute functions
+        private int pins;
+
+        /**
+         * Caches a version of the game unless a later one is already cached, since a load and an
+         * update of the same game can finish in either order
+         *
+         * @return the cached game
+         */
+        private synchronized GameData offer(GameData offered) {
+            if (game == null || offered.version() > game.version()) {
+                game = offered;
+            }
+            return game;
+        }
+    }
+}
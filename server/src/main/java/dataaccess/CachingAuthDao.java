@@ -0,0 +1,114 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches auth tokens found in another AuthDao, so repeated lookups of the same token skip the database.
+ * <p>
+ * At most maxSize tokens are kept. When the cache is full, the least recently used of a few sampled
+ * tokens is evicted, so eviction is only approximately LRU but never blocks other lookups. A cached
+ * token is trusted for the time to live, which bounds how long a token deleted by another server
+ * stays usable here. Tokens deleted through this DAO are forgotten immediately, even if a lookup of
+ * the same token is loading it at the time. Unknown tokens are never cached.
+ */
+public class CachingAuthDao implements AuthDao {
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+
+    private final AuthDao delegate;
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private final Map<String, CachedAuth> cache = new ConcurrentHashMap<>();
+
+    public CachingAuthDao(AuthDao delegate, int maxSize, Duration timeToLive) {
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    @Override
+    public void createAuth(AuthData authData) throws DataAccessException {
+        delegate.createAuth(authData);
+        cache.put(authData.authToken(), new CachedAuth(authData));
+        evictIfFull();
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        CachedAuth cached = cache.get(authToken);
+        if (cached != null && cached.auth != null) {
+            long now = System.nanoTime();
+            if (now - cached.cachedAt < timeToLiveNanos) {
+                cached.lastUsed = now;
+                return cached.auth;
+            }
+            cache.remove(authToken, cached);
+        }
+        // deleteAuth removes the placeholder, so a token deleted while it loads is not cached
+        CachedAuth loading = new CachedAuth(null);
+        boolean caching = cache.putIfAbsent(authToken, loading) == null;
+        AuthData auth;
+        try {
+            auth = delegate.getAuth(authToken);
+        } catch (DataAccessException | RuntimeException ex) {
+            cache.remove(authToken, loading);
+            throw ex;
+        }
+        if (caching) {
+            if (auth != null && cache.replace(authToken, loading, new CachedAuth(auth))) {
+                evictIfFull();
+            } else {
+                cache.remove(authToken, loading);
+            }
+        }
+        return auth;
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        delegate.deleteAuth(authToken);
+        cache.remove(authToken);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        delegate.clear();
+        cache.clear();
+    }
+
+    private void evictIfFull() {
+        while (cache.size() > maxSize) {
+            Map.Entry<String, CachedAuth> eldest = null;
+            Iterator<Map.Entry<String, CachedAuth>> entries = cache.entrySet().iterator();
+            for (int i = 0; i < EVICTION_SAMPLE_SIZE && entries.hasNext(); i++) {
+                Map.Entry<String, CachedAuth> entry = entries.next();
+                if (eldest == null || entry.getValue().lastUsed - eldest.getValue().lastUsed < 0) {
+                    eldest = entry;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            cache.remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * A cached token, or a placeholder with a null auth while the token is being loaded
+     */
+    private static class CachedAuth {
+        private final AuthData auth;
+        private final long cachedAt;
+        private volatile long lastUsed;
+
+        private CachedAuth(AuthData auth) {
+            this.auth = auth;
+            this.cachedAt = System.nanoTime();
+            this.lastUsed = cachedAt;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package dataaccess;
+
+/**
+ * Indicates a game was not updated because it was updated by someone else after it was read
+ */
+public class ConcurrentUpdateException extends DataAccessException {
+    public ConcurrentUpdateException(int gameID) {
+        super("game " + gameID + " was updated concurrently");
+    }
+}
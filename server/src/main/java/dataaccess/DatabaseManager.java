@@ -1,6 +1,10 @@
 package dataaccess;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
 import java.sql.*;
+import java.util.List;
 import java.util.Properties;
 
 public class DatabaseManager {
@@ -8,6 +12,16 @@ public class DatabaseManager {
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static int poolMaxSize;
+    private static int poolMinIdle;
+    private static long poolIdleTimeoutMs;
+    private static long poolMaxLifetimeMs;
+    private static long poolConnectionTimeoutMs;
+    private static HikariDataSource dataSource;
+    private static String journalPath;
+    private static long journalFlushIntervalMs;
+    private static int authCacheMaxSize;
+    private static long authCacheTimeToLiveMs;
 
     /*
      * Load the database information for the db.properties file.
@@ -30,10 +44,10 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * Borrows a connection to the database from the connection pool, creating the
+     * database and the pool on first use. Connections to the database should
+     * be short-lived, and you must close the connection when you are done with it
+     * so it is returned to the pool. The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
      * try (var conn = DatabaseManager.getConnection()) {
@@ -44,14 +58,46 @@ public class DatabaseManager {
     static Connection getConnection() throws DataAccessException {
         try {
             //do not wrap the following line with a try-with-resources
-            var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
-            conn.setCatalog(databaseName);
-            return conn;
+            return getDataSource().getConnection();
         } catch (SQLException ex) {
             throw new DataAccessException("failed to get connection", ex);
         }
     }
 
+    /**
+     * Closes every pooled connection. The pool is created again if another connection is requested.
+     */
+    static public synchronized void closePool() {
+        if (dataSource != null) {
+            dataSource.close();
+            dataSource = null;
+        }
+    }
+
+    private static synchronized HikariDataSource getDataSource() throws DataAccessException {
+        if (dataSource == null) {
+            // the pool sets the catalog on each connection, so the database has to exist first
+            createDatabase();
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("chess");
+            config.setJdbcUrl(connectionUrl);
+            config.setUsername(dbUsername);
+            config.setPassword(dbPassword);
+            config.setCatalog(databaseName);
+            config.setMaximumPoolSize(poolMaxSize);
+            config.setMinimumIdle(poolMinIdle);
+            config.setIdleTimeout(poolIdleTimeoutMs);
+            config.setMaxLifetime(poolMaxLifetimeMs);
+            config.setConnectionTimeout(poolConnectionTimeoutMs);
+            try {
+                dataSource = new HikariDataSource(config);
+            } catch (RuntimeException ex) {
+                throw new DataAccessException("failed to create connection pool", ex);
+            }
+        }
+        return dataSource;
+    }
+
     private static void loadPropertiesFromResources() {
         try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
             if (propStream == null) {
@@ -66,6 +112,8 @@ public class DatabaseManager {
     }
 
     private static void loadProperties(Properties props) {
+        // connections already in the pool were opened with the old settings
+        closePool();
         databaseName = props.getProperty("db.name");
         dbUsername = props.getProperty("db.user");
         dbPassword = props.getProperty("db.password");
@@ -73,43 +121,203 @@ public class DatabaseManager {
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
         connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+
+        // pool settings are optional; connections are validated with Connection.isValid before being handed out
+        poolMaxSize = Integer.parseInt(props.getProperty("db.pool.maxSize", "10"));
+        poolMinIdle = Integer.parseInt(props.getProperty("db.pool.minIdle", "2"));
+        poolIdleTimeoutMs = Long.parseLong(props.getProperty("db.pool.idleTimeoutMs", "600000"));
+        poolMaxLifetimeMs = Long.parseLong(props.getProperty("db.pool.maxLifetimeMs", "1800000"));
+        poolConnectionTimeoutMs = Long.parseLong(props.getProperty("db.pool.connectionTimeoutMs", "30000"));
+
+        // game updates are written behind through a local journal only if a journal path is set
+        journalPath = props.getProperty("db.journal.path");
+        journalFlushIntervalMs = Long.parseLong(props.getProperty("db.journal.flushIntervalMs", "20"));
+
+        authCacheMaxSize = Integer.parseInt(props.getProperty("db.authCache.maxSize", "10000"));
+        authCacheTimeToLiveMs = Long.parseLong(props.getProperty("db.authCache.ttlMs", "300000"));
     }
 
-    private static void createTable(String createStatement) throws DataAccessException {
-        try {
-            createDatabase();
-            try (var conn = getConnection(); var statement = conn.prepareStatement(createStatement)) {
-                statement.execute();
+    /**
+     * @return the path of the write-behind journal for game updates, or null if game updates are written directly
+     */
+    public static String getJournalPath() {
+        return journalPath;
+    }
+
+    /**
+     * @return how often the write-behind journal is synced to disk and flushed to the database
+     */
+    public static long getJournalFlushIntervalMs() {
+        return journalFlushIntervalMs;
+    }
+
+    /**
+     * @return the most auth tokens kept in the auth cache
+     */
+    public static int getAuthCacheMaxSize() {
+        return authCacheMaxSize;
+    }
+
+    /**
+     * @return how long a cached auth token is trusted before it is looked up again
+     */
+    public static long getAuthCacheTimeToLiveMs() {
+        return authCacheTimeToLiveMs;
+    }
+
+    /**
+     * Brings the schema up to date by applying, in order, every migration newer than the version
+     * recorded in the schema_version table. This runs once when the server starts; the DAOs
+     * assume the schema exists. A MySQL named lock keeps servers starting at the same time from
+     * applying the same migration twice.
+     */
+    public static void migrate() throws DataAccessException {
+        try (var conn = getConnection()) {
+            try (var lock = conn.prepareStatement("SELECT GET_LOCK('chess_schema', 30)");
+                 var resultSet = lock.executeQuery()) {
+                if (!resultSet.next() || resultSet.getInt(1) != 1) {
+                    throw new DataAccessException("timed out waiting for the schema lock");
+                }
             }
-        } catch (java.sql.SQLException ex) {
-            throw new DataAccessException(ex.getMessage());
+            try {
+                execute(conn, "CREATE TABLE IF NOT EXISTS schema_version (version int PRIMARY KEY NOT NULL)");
+                int version = getSchemaVersion(conn);
+                for (int i = version; i < MIGRATIONS.size(); i++) {
+                    for (Step step : MIGRATIONS.get(i)) {
+                        step.apply(conn);
+                    }
+                    try (var statement = conn.prepareStatement("INSERT INTO schema_version VALUES (?)")) {
+                        statement.setInt(1, i + 1);
+                        statement.executeUpdate();
+                    }
+                }
+            } finally {
+                execute(conn, "SELECT RELEASE_LOCK('chess_schema')");
+            }
+        } catch (SQLException ex) {
+            throw new DataAccessException("failed to migrate schema", ex);
+        }
+    }
+
+    private static int getSchemaVersion(Connection conn) throws SQLException {
+        try (var statement = conn.prepareStatement("SELECT MAX(version) FROM schema_version");
+             var resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (var statement = conn.prepareStatement(sql)) {
+            statement.execute();
         }
     }
 
-    public static void createTables() throws DataAccessException {
-        createTable("""
-                CREATE TABLE IF NOT EXISTS sessions (
-                  authToken VARCHAR(256) PRIMARY KEY NOT NULL,
-                  username VARCHAR(256) NOT NULL
-                );
-                """);
-
-        createTable("""
-                CREATE TABLE IF NOT EXISTS users (
-                  username VARCHAR(256) PRIMARY KEY NOT NULL,
-                  passwordHash VARCHAR(256) NOT NULL,
-                  email VARCHAR(256) NOT NULL
-                );
-                """);
-
-        createTable("""
-                CREATE TABLE IF NOT EXISTS games (
-                  gameID int PRIMARY KEY NOT NULL AUTO_INCREMENT,
-                  whiteUsername VARCHAR(256),
-                  blackUsername VARCHAR(256),
-                  gameName VARCHAR(256) NOT NULL,
-                  game TEXT NOT NULL
-                );
-                """);
+    private static boolean exists(Connection conn, String sql, String... params) throws SQLException {
+        try (var statement = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setString(i + 1, params[i]);
+            }
+            try (var resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getInt(1) > 0;
+            }
+        }
     }
+
+    /**
+     * One statement of a migration
+     */
+    private interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static Step sql(String sql) {
+        return conn -> execute(conn, sql);
+    }
+
+    /**
+     * MySQL has no ADD COLUMN IF NOT EXISTS, so the column is looked up first
+     */
+    private static Step addColumn(String table, String column, String definition) {
+        return conn -> {
+            if (!exists(conn, """
+                    SELECT COUNT(*) FROM information_schema.COLUMNS
+                    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?
+                    """, table, column)) {
+                execute(conn, "ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+            }
+        };
+    }
+
+    private static Step createIndex(String table, String index, String columns) {
+        return conn -> {
+            if (!exists(conn, """
+                    SELECT COUNT(*) FROM information_schema.STATISTICS
+                    WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?
+                    """, table, index)) {
+                execute(conn, "CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+            }
+        };
+    }
+
+    /*
+     * Schema changes, applied in order by migrate(). Version n is the list at index n - 1. Applied
+     * migrations must never be edited; add a new one instead. The tables in version 1 may already
+     * exist in databases created before versions were tracked, so it only creates missing tables.
+     * MySQL commits each schema change as it is made, so a migration interrupted partway is left
+     * half-applied and rerun on the next start; every step skips whatever already exists.
+     */
+    private static final List<Step[]> MIGRATIONS = List.<Step[]>of(
+            new Step[]{
+                    sql("""
+                    CREATE TABLE IF NOT EXISTS sessions (
+                      authToken VARCHAR(256) PRIMARY KEY NOT NULL,
+                      username VARCHAR(256) NOT NULL
+                    )
+                    """),
+                    sql("""
+                    CREATE TABLE IF NOT EXISTS users (
+                      username VARCHAR(256) PRIMARY KEY NOT NULL,
+                      passwordHash VARCHAR(256) NOT NULL,
+                      email VARCHAR(256) NOT NULL
+                    )
+                    """),
+                    sql("""
+                    CREATE TABLE IF NOT EXISTS games (
+                      gameID int PRIMARY KEY NOT NULL AUTO_INCREMENT,
+                      whiteUsername VARCHAR(256),
+                      blackUsername VARCHAR(256),
+                      gameName VARCHAR(256) NOT NULL,
+                      game TEXT NOT NULL
+                    )
+                    """)
+            },
+            new Step[]{
+                    sql("""
+                    CREATE TABLE IF NOT EXISTS moves (
+                      gameID int NOT NULL,
+                      ply int NOT NULL,
+                      move VARCHAR(5) NOT NULL,
+                      madeAt TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+                      PRIMARY KEY (gameID, ply)
+                    )
+                    """),
+                    addColumn("games", "snapshotPly", "int NOT NULL DEFAULT 0")
+            },
+            new Step[]{
+                    addColumn("games", "status", "VARCHAR(16) NOT NULL DEFAULT 'OPEN'"),
+                    // games that ended in checkmate or stalemate are marked finished the next time they are saved
+                    sql("""
+                    UPDATE games SET status = CASE
+                      WHEN SUBSTRING_INDEX(SUBSTRING_INDEX(game, ' ', 3), ' ', -1) = '1'
+                        OR game LIKE '{%"isOver":true%' THEN 'FINISHED'
+                      WHEN whiteUsername IS NOT NULL AND blackUsername IS NOT NULL THEN 'IN_PROGRESS'
+                      ELSE 'OPEN'
+                    END
+                    """),
+                    createIndex("games", "games_status", "status, gameID")
+            },
+            new Step[]{
+                    addColumn("games", "version", "int NOT NULL DEFAULT 0")
+            }
+    );
 }
@@ -1,7 +1,10 @@
 package dataaccess;
 
+import chess.ChessMove;
 import model.GameData;
+import model.GameSummary;
 
+import java.util.Comparator;
 import java.util.List;
 
 public interface GameDao {
@@ -9,9 +12,59 @@ public interface GameDao {
 
     GameData getGame(int gameID) throws DataAccessException;
 
+    /**
+     * Lists games without their boards, in order of ID. The default reads every game.
+     *
+     * @param status      only list games with this status, or every game if null
+     * @param afterGameID only list games with a higher ID than this
+     * @param limit       the most games to list
+     */
+    default List<GameSummary> listGames(GameSummary.Status status, int afterGameID, int limit)
+            throws DataAccessException {
+        return getGames().stream()
+                .filter(game -> game.gameID() > afterGameID)
+                .sorted(Comparator.comparingInt(GameData::gameID))
+                .map(GameSummary::of)
+                .filter(game -> status == null || game.status() == status)
+                .limit(limit)
+                .toList();
+    }
+
     int createGame(String gameName) throws DataAccessException;
 
+    /**
+     * Replaces a game with a new version of it, as returned by one of the GameData {@code with} methods
+     *
+     * @throws ConcurrentUpdateException if the stored game is not the version the new one was made from
+     */
     void updateGame(GameData gameData) throws DataAccessException;
 
+    /**
+     * Saves a game after a move was made in it. DAOs that keep a log of moves can store just the
+     * move; the default saves the whole game.
+     *
+     * @param gameData the game with the move already made, as a new version
+     * @param move     the move that was made
+     * @throws ConcurrentUpdateException if the stored game is not the version the new one was made from
+     */
+    default void recordMove(GameData gameData, ChessMove move) throws DataAccessException {
+        updateGame(gameData);
+    }
+
+    /**
+     * Stores updates in the order given, as updateGame and recordMove would. The default stores them
+     * one at a time, so if one fails the ones before it stay stored; DAOs that can should store all
+     * of them or none.
+     */
+    default void applyUpdates(List<GameUpdate> updates) throws DataAccessException {
+        for (GameUpdate update : updates) {
+            if (update.move() == null) {
+                updateGame(update.gameData());
+            } else {
+                recordMove(update.gameData(), update.move());
+            }
+        }
+    }
+
     void clear() throws DataAccessException;
 }
@@ -0,0 +1,13 @@
+package dataaccess;
+
+import chess.ChessMove;
+import model.GameData;
+
+/**
+ * A new version of a game to store
+ *
+ * @param gameData the new version of the game
+ * @param move     the move that made it, or null if the game was updated some other way
+ */
+public record GameUpdate(GameData gameData, ChessMove move) {
+}
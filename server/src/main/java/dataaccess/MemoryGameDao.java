@@ -35,7 +35,11 @@ public class MemoryGameDao implements GameDao {
     }
 
     @Override
-    public void updateGame(GameData gameData) throws DataAccessException {
+    public synchronized void updateGame(GameData gameData) throws DataAccessException {
+        GameData stored = games.get(gameData.gameID());
+        if (stored == null || stored.version() != gameData.version() - 1) {
+            throw new ConcurrentUpdateException(gameData.gameID());
+        }
         games.put(gameData.gameID(), gameData);
     }
 
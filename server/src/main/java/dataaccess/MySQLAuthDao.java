@@ -7,10 +7,6 @@ import java.sql.SQLException;
 import static dataaccess.DatabaseManager.*;
 
 public class MySQLAuthDao implements AuthDao {
-    public MySQLAuthDao() throws DataAccessException {
-        createTables();
-    }
-
     @Override
     public void createAuth(AuthData authData) throws DataAccessException {
         try (var conn = getConnection();
@@ -1,36 +1,69 @@
 package dataaccess;
 
 import chess.ChessGame;
-import com.google.gson.Gson;
+import chess.ChessMove;
+import chess.GameCodec;
+import chess.InvalidMoveException;
+import chess.MoveNotation;
+import com.google.gson.JsonParseException;
 import model.GameData;
+import model.GameSummary;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import static dataaccess.DatabaseManager.*;
 
+/**
+ * Games are stored in the compact form written by {@link GameCodec}. Rows written as JSON by
+ * earlier versions are still read, and are rewritten in the compact form the next time they are updated.
+ * <p>
+ * Every move is appended to the {@code moves} table. The {@code game} column is a snapshot that is
+ * only rewritten every {@link #SNAPSHOT_INTERVAL} moves, when the game ends, or when the game is
+ * updated some other way;
+ * reads replay the moves made after the snapshot on top of it. The row also keeps the game's
+ * {@link GameSummary.Status} so the lobby can be listed without reading any boards.
+ * <p>
+ * Updates are compare-and-set on the row's version, so a game that was changed after it was read is
+ * never overwritten; every move bumps the version even when it does not rewrite the snapshot.
+ */
 public class MySQLGameDao implements GameDao {
-    public MySQLGameDao() throws DataAccessException {
-       createTables();
-    }
+    private static final int SNAPSHOT_INTERVAL = 16;
 
     @Override
     public List<GameData> getGames() throws DataAccessException {
-        List<GameData> games = new ArrayList<>();
+        Map<Integer, GameData> games = new LinkedHashMap<>();
         try (var conn = getConnection(); var statement = conn.prepareStatement("SELECT * FROM games")) {
             var resultSet = statement.executeQuery();
             while(resultSet.next()) {
-                ChessGame game = new Gson().fromJson(resultSet.getString("game"), ChessGame.class);
-                games.add(new GameData(
-                        resultSet.getInt("gameID"),
+                int gameID = resultSet.getInt("gameID");
+                ChessGame game = decode(resultSet.getString("game"), gameID);
+                games.put(gameID, new GameData(
+                        gameID,
                         resultSet.getString("whiteUsername"),
                         resultSet.getString("blackUsername"),
                         resultSet.getString("gameName"),
-                        game)
+                        game,
+                        resultSet.getInt("version"))
                 );
             }
-            return games;
+            try (var moves = conn.prepareStatement("""
+                    SELECT m.gameID, m.ply, m.move FROM moves m JOIN games g ON m.gameID = g.gameID
+                    WHERE m.ply > g.snapshotPly ORDER BY m.gameID, m.ply
+                    """)) {
+                var moveSet = moves.executeQuery();
+                while (moveSet.next()) {
+                    GameData gameData = games.get(moveSet.getInt("gameID"));
+                    if (gameData != null) {
+                        replayMove(gameData, moveSet.getInt("ply"), moveSet.getString("move"));
+                    }
+                }
+            }
+            return new ArrayList<>(games.values());
         } catch (SQLException ex) {
             throw new DataAccessException(ex.getMessage());
         }
@@ -42,14 +75,25 @@ public class MySQLGameDao implements GameDao {
             statement.setInt(1, gameID);
             var resultSet = statement.executeQuery();
             if (resultSet.next()) {
-               ChessGame game = new Gson().fromJson(resultSet.getString("game"), ChessGame.class);
-               return new GameData(
+               ChessGame game = decode(resultSet.getString("game"), gameID);
+               GameData gameData = new GameData(
                        resultSet.getInt("gameID"),
                        resultSet.getString("whiteUsername"),
                        resultSet.getString("blackUsername"),
                        resultSet.getString("gameName"),
-                       game
+                       game,
+                       resultSet.getInt("version")
                );
+               try (var moves = conn.prepareStatement(
+                       "SELECT ply, move FROM moves WHERE gameID = ? AND ply > ? ORDER BY ply")) {
+                   moves.setInt(1, gameID);
+                   moves.setInt(2, resultSet.getInt("snapshotPly"));
+                   var moveSet = moves.executeQuery();
+                   while (moveSet.next()) {
+                       replayMove(gameData, moveSet.getInt("ply"), moveSet.getString("move"));
+                   }
+               }
+               return gameData;
             } else {
                 return null;
             }
@@ -58,6 +102,36 @@ public class MySQLGameDao implements GameDao {
         }
     }
 
+    @Override
+    public List<GameSummary> listGames(GameSummary.Status status, int afterGameID, int limit)
+            throws DataAccessException {
+        String sql = status == null
+                ? "SELECT gameID, whiteUsername, blackUsername, gameName, status FROM games WHERE gameID > ? ORDER BY gameID LIMIT ?"
+                : "SELECT gameID, whiteUsername, blackUsername, gameName, status FROM games WHERE status = ? AND gameID > ? ORDER BY gameID LIMIT ?";
+        try (var conn = getConnection(); var statement = conn.prepareStatement(sql)) {
+            int i = 1;
+            if (status != null) {
+                statement.setString(i++, status.name());
+            }
+            statement.setInt(i++, afterGameID);
+            statement.setInt(i, limit);
+            var resultSet = statement.executeQuery();
+            List<GameSummary> games = new ArrayList<>();
+            while (resultSet.next()) {
+                games.add(new GameSummary(
+                        resultSet.getInt("gameID"),
+                        resultSet.getString("whiteUsername"),
+                        resultSet.getString("blackUsername"),
+                        resultSet.getString("gameName"),
+                        GameSummary.Status.valueOf(resultSet.getString("status"))
+                ));
+            }
+            return games;
+        } catch (SQLException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
     @Override
     public int createGame(String gameName) throws DataAccessException {
         try (
@@ -69,7 +143,7 @@ public class MySQLGameDao implements GameDao {
                         Statement.RETURN_GENERATED_KEYS
                 )) {
             statement.setString(1, gameName);
-            statement.setString(2, new Gson().toJson(new ChessGame()));
+            statement.setString(2, GameCodec.encode(new ChessGame()));
             statement.executeUpdate();
             var resultSet = statement.getGeneratedKeys();
             if (resultSet.next()) {
@@ -84,14 +158,38 @@ public class MySQLGameDao implements GameDao {
 
     @Override
     public void updateGame(GameData gameData) throws DataAccessException {
-        try (var conn = getConnection(); var statement = conn.prepareStatement("""
-                UPDATE games SET whiteUsername = ?, blackUsername = ?, game = ? WHERE gameID = ?
-                """)) {
-            statement.setString(1, gameData.whiteUsername());
-            statement.setString(2, gameData.blackUsername());
-            statement.setString(3, new Gson().toJson(gameData.game()));
-            statement.setInt(4, gameData.gameID());
-            statement.executeUpdate();
+        try (var conn = getConnection()) {
+            checkUpdated(writeSnapshot(conn, gameData), gameData);
+        } catch (SQLException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    @Override
+    public void recordMove(GameData gameData, ChessMove move) throws DataAccessException {
+        applyUpdates(List.of(new GameUpdate(gameData, move)));
+    }
+
+    /**
+     * Stores every update in one transaction, so either all of them are stored or none are
+     */
+    @Override
+    public void applyUpdates(List<GameUpdate> updates) throws DataAccessException {
+        try (var conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (GameUpdate update : updates) {
+                    if (update.move() == null) {
+                        checkUpdated(writeSnapshot(conn, update.gameData()), update.gameData());
+                    } else {
+                        writeMove(conn, update.gameData(), update.move());
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | ConcurrentUpdateException ex) {
+                conn.rollback();
+                throw ex;
+            }
         } catch (SQLException ex) {
             throw new DataAccessException(ex.getMessage());
         }
@@ -99,10 +197,86 @@ public class MySQLGameDao implements GameDao {
 
     @Override
     public void clear() throws DataAccessException {
-        try (var conn = getConnection(); var statement = conn.prepareStatement("TRUNCATE TABLE games")) {
-            statement.execute();
+        try (var conn = getConnection()) {
+            try (var statement = conn.prepareStatement("TRUNCATE TABLE moves")) {
+                statement.execute();
+            }
+            try (var statement = conn.prepareStatement("TRUNCATE TABLE games")) {
+                statement.execute();
+            }
         } catch (SQLException ex) {
             throw new DataAccessException(ex.getMessage());
         }
     }
+
+    private void writeMove(Connection conn, GameData gameData, ChessMove move)
+            throws SQLException, ConcurrentUpdateException {
+        ChessGame game = gameData.game();
+        // the status only changes on a move when the game ends
+        if (game.getPly() % SNAPSHOT_INTERVAL == 0
+                || GameSummary.statusOf(gameData) == GameSummary.Status.FINISHED) {
+            checkUpdated(writeSnapshot(conn, gameData), gameData);
+        } else {
+            try (var statement = conn.prepareStatement(
+                    "UPDATE games SET version = ? WHERE gameID = ? AND version = ?")) {
+                statement.setInt(1, gameData.version());
+                statement.setInt(2, gameData.gameID());
+                statement.setInt(3, gameData.version() - 1);
+                checkUpdated(statement.executeUpdate(), gameData);
+            }
+        }
+        try (var statement = conn.prepareStatement("INSERT INTO moves (gameID, ply, move) VALUES (?, ?, ?)")) {
+            statement.setInt(1, gameData.gameID());
+            statement.setInt(2, game.getPly());
+            statement.setString(3, MoveNotation.format(move));
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @return the number of rows updated, which is 0 if the stored game is not the previous version
+     */
+    private int writeSnapshot(Connection conn, GameData gameData) throws SQLException {
+        try (var statement = conn.prepareStatement("""
+                UPDATE games SET whiteUsername = ?, blackUsername = ?, game = ?, snapshotPly = ?, status = ?, version = ?
+                WHERE gameID = ? AND version = ?
+                """)) {
+            statement.setString(1, gameData.whiteUsername());
+            statement.setString(2, gameData.blackUsername());
+            statement.setString(3, GameCodec.encode(gameData.game()));
+            statement.setInt(4, gameData.game().getPly());
+            statement.setString(5, GameSummary.statusOf(gameData).name());
+            statement.setInt(6, gameData.version());
+            statement.setInt(7, gameData.gameID());
+            statement.setInt(8, gameData.version() - 1);
+            return statement.executeUpdate();
+        }
+    }
+
+    private void checkUpdated(int rowsUpdated, GameData gameData) throws ConcurrentUpdateException {
+        if (rowsUpdated == 0) {
+            throw new ConcurrentUpdateException(gameData.gameID());
+        }
+    }
+
+    private static ChessGame decode(String encoded, int gameID) throws DataAccessException {
+        try {
+            return GameCodec.decode(encoded);
+        } catch (IllegalArgumentException | JsonParseException ex) {
+            throw new DataAccessException("game " + gameID + " cannot be decoded", ex);
+        }
+    }
+
+    private void replayMove(GameData gameData, int ply, String move) throws DataAccessException {
+        ChessGame game = gameData.game();
+        // snapshots written before snapshotPly existed can be ahead of it
+        if (ply <= game.getPly()) {
+            return;
+        }
+        try {
+            game.makeMove(MoveNotation.parse(move));
+        } catch (InvalidMoveException | IllegalArgumentException ex) {
+            throw new DataAccessException("move " + ply + " of game " + gameData.gameID() + " cannot be replayed", ex);
+        }
+    }
 }
@@ -7,9 +7,6 @@ import java.sql.SQLException;
 import static dataaccess.DatabaseManager.*;
 
 public class MySQLUserDao implements UserDao {
-    public MySQLUserDao() throws DataAccessException {
-       createTables();
-    }
     @Override
     public UserData getUser(String username) throws DataAccessException {
         try (
@@ -0,0 +1,565 @@
+package dataaccess;
+
+import chess.ChessMove;
+import chess.GameCodec;
+import chess.MoveNotation;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import model.GameData;
+import model.GameSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes game updates behind, in front of another GameDao.
+ * <p>
+ * updateGame and recordMove append the game to a local journal file and return without waiting
+ * for the underlying DAO. A background thread syncs the journal to disk and then passes the updates
+ * on to the underlying DAO in batches of at most {@link #MAX_BATCH_SIZE}, each game's in the order
+ * they were made, every flush interval, so a DAO that logs moves sees every one of them. Once the
+ * journal mostly holds updates that have been written, it is rewritten with just the ones that have
+ * not. If the server stops before an update is written, the journal is replayed into the underlying
+ * DAO the next time it starts.
+ * <p>
+ * An update is durable against a crash of the server as soon as updateGame returns, and against a
+ * crash of the machine after the next sync. Games with pending updates are read from memory.
+ * <p>
+ * Versions are checked when an update is journaled, against the latest version journaled for the
+ * game or, if it has no pending updates, the version stored by the underlying DAO. Updates replayed
+ * after a crash that the underlying DAO had already stored are recognized by their version and
+ * skipped. When a batch fails, its games are written one at a time, so one game the underlying DAO
+ * rejects does not hold up the others. A game whose update is rejected as a conflict, or fails
+ * {@link #MAX_REJECTIONS} flushes in a row, is quarantined: its unwritten updates are kept in the
+ * journal and retried when the server restarts, but no longer read or flushed, so the game is read
+ * from the underlying DAO again. Quarantined games are logged and reported by getQuarantinedGames.
+ */
+public class WriteBehindGameDao implements GameDao, AutoCloseable {
+    // the most updates passed to the underlying DAO at once
+    static final int MAX_BATCH_SIZE = 256;
+    // flushes in a row a game's update can fail before the game is quarantined
+    static final int MAX_REJECTIONS = 3;
+    // the journal is only compacted once it is at least this large
+    private static final long COMPACTION_THRESHOLD_BYTES = 64 * 1024;
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindGameDao.class);
+
+    private final Gson gson = new Gson();
+    private final GameDao delegate;
+    private final Path journalPath;
+    // guards the journal file, versions, forgottenVersions and quarantined
+    private final Object journalLock = new Object();
+    private FileChannel journal;
+    // updates that have not been written to the delegate yet, oldest first
+    private final Queue<Journaled> unflushed = new ConcurrentLinkedQueue<>();
+    // latest of those updates for each game
+    private final Map<Integer, GameData> pending = new ConcurrentHashMap<>();
+    // version of each game with pending updates after the last one
+    private final Map<Integer, Integer> versions = new HashMap<>();
+    // how many times versions were forgotten, counted per stripe of game IDs
+    private final long[] forgottenVersions = new long[64];
+    // unwritten updates of games the delegate kept rejecting, oldest first
+    private final Map<Integer, List<Journaled>> quarantined = new LinkedHashMap<>();
+    // flushes in a row that each game's update has failed in, only used while flushing
+    private final Map<Integer, Integer> rejections = new HashMap<>();
+    // whether some updates may already be stored, e.g. after a crash or a failed flush
+    private boolean mayBeStored = true;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("game-journal").daemon().factory());
+
+    /**
+     * Opens the journal, replays any updates left in it from a previous run and starts flushing.
+     *
+     * @param delegate        where games are eventually written
+     * @param journalPath     the journal file, which is created if it does not exist
+     * @param flushIntervalMs how often to sync the journal and flush pending updates
+     * @throws DataAccessException if the journal cannot be read, or an entry before its last is corrupt
+     */
+    public WriteBehindGameDao(GameDao delegate, Path journalPath, long flushIntervalMs) throws DataAccessException {
+        this.delegate = delegate;
+        this.journalPath = journalPath;
+        try {
+            journal = openJournal();
+            replay();
+        } catch (IOException ex) {
+            throw new DataAccessException("failed to open game journal", ex);
+        }
+        flush();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<GameData> getGames() throws DataAccessException {
+        List<GameData> result = new ArrayList<>();
+        for (GameData game : delegate.getGames()) {
+            result.add(pending.getOrDefault(game.gameID(), game));
+        }
+        return result;
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        GameData game = pending.get(gameID);
+        return game == null ? delegate.getGame(gameID) : game;
+    }
+
+    /**
+     * Lists games from the underlying DAO, with the players and status of games that have pending
+     * updates brought up to date. A game whose status changed in a pending update is still filtered
+     * by its stored status until the update is flushed.
+     */
+    @Override
+    public List<GameSummary> listGames(GameSummary.Status status, int afterGameID, int limit)
+            throws DataAccessException {
+        List<GameSummary> result = new ArrayList<>();
+        for (GameSummary game : delegate.listGames(status, afterGameID, limit)) {
+            GameData updated = pending.get(game.gameID());
+            result.add(updated == null ? game : GameSummary.of(updated));
+        }
+        return result;
+    }
+
+    /**
+     * Creates the game in the underlying DAO right away, since the caller needs its ID
+     */
+    @Override
+    public int createGame(String gameName) throws DataAccessException {
+        return delegate.createGame(gameName);
+    }
+
+    @Override
+    public void updateGame(GameData gameData) throws DataAccessException {
+        append(new GameUpdate(gameData, null));
+    }
+
+    @Override
+    public void recordMove(GameData gameData, ChessMove move) throws DataAccessException {
+        append(new GameUpdate(gameData, move));
+    }
+
+    @Override
+    public synchronized void clear() throws DataAccessException {
+        synchronized (journalLock) {
+            unflushed.clear();
+            pending.clear();
+            versions.clear();
+            quarantined.clear();
+            rejections.clear();
+            for (int i = 0; i < forgottenVersions.length; i++) {
+                forgottenVersions[i]++;
+            }
+            try {
+                journal.truncate(0);
+            } catch (IOException ex) {
+                throw new DataAccessException("failed to truncate game journal", ex);
+            }
+        }
+        delegate.clear();
+    }
+
+    /**
+     * @return the games whose updates the underlying DAO kept rejecting, which stay in the journal
+     */
+    public Set<Integer> getQuarantinedGames() {
+        synchronized (journalLock) {
+            return new TreeSet<>(quarantined.keySet());
+        }
+    }
+
+    /**
+     * @return the number of updates waiting to be written to the underlying DAO
+     */
+    public int getPendingUpdates() {
+        return unflushed.size();
+    }
+
+    /**
+     * Stops the background thread after flushing every pending update
+     */
+    @Override
+    public void close() throws DataAccessException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (journalLock) {
+            try {
+                journal.close();
+            } catch (IOException ex) {
+                throw new DataAccessException("failed to close game journal", ex);
+            }
+        }
+    }
+
+    private void append(GameUpdate update) throws DataAccessException {
+        GameData gameData = update.gameData();
+        int gameID = gameData.gameID();
+        byte[] entry = (gson.toJson(JournalEntry.of(update)) + "\n").getBytes(StandardCharsets.UTF_8);
+        Integer storedVersion = null;
+        long forgottenSeen = -1;
+        while (true) {
+            synchronized (journalLock) {
+                Integer version = versions.get(gameID);
+                // a stored version read before the game's version was forgotten may already be out of date
+                if (version == null && forgottenSeen == forgottenVersions[stripe(gameID)]) {
+                    version = storedVersion;
+                }
+                if (version != null) {
+                    if (version != gameData.version() - 1) {
+                        throw new ConcurrentUpdateException(gameID);
+                    }
+                    try {
+                        journal.write(ByteBuffer.wrap(entry), journal.size());
+                    } catch (IOException ex) {
+                        throw new DataAccessException("failed to write game journal", ex);
+                    }
+                    unflushed.add(new Journaled(update, entry));
+                    pending.put(gameID, gameData);
+                    versions.put(gameID, gameData.version());
+                    return;
+                }
+                forgottenSeen = forgottenVersions[stripe(gameID)];
+            }
+            // read the stored version without holding up updates of other games
+            GameData stored = delegate.getGame(gameID);
+            if (stored == null) {
+                throw new ConcurrentUpdateException(gameID);
+            }
+            storedVersion = stored.version();
+        }
+    }
+
+    private FileChannel openJournal() throws IOException {
+        return FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void replay() throws IOException, DataAccessException {
+        byte[] contents = Files.readAllBytes(journalPath);
+        int start = 0;
+        for (int entryNumber = 1; start < contents.length; entryNumber++) {
+            int end = start;
+            while (end < contents.length && contents[end] != '\n') {
+                end++;
+            }
+            boolean last = end >= contents.length - 1;
+            GameUpdate update = null;
+            if (end < contents.length) {
+                try {
+                    String line = new String(contents, start, end - start, StandardCharsets.UTF_8);
+                    update = gson.fromJson(line, JournalEntry.class).toUpdate();
+                } catch (JsonParseException | IllegalArgumentException | NullPointerException ex) {
+                    if (!last) {
+                        throw new DataAccessException("game journal entry " + entryNumber + " is corrupt", ex);
+                    }
+                }
+            }
+            if (update == null) {
+                // only the last entry can be incomplete, if the server stopped while writing it; it is cut
+                // off so that entries appended from now on do not follow it
+                LOG.warn("Discarding incomplete last entry of the game journal");
+                journal.truncate(start);
+                return;
+            }
+            unflushed.add(new Journaled(update, Arrays.copyOfRange(contents, start, end + 1)));
+            pending.put(update.gameData().gameID(), update.gameData());
+            versions.put(update.gameData().gameID(), update.gameData().version());
+            start = end + 1;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DataAccessException ex) {
+            // the updates stay pending and are retried on the next flush
+            LOG.warn("Failed to flush game journal", ex);
+        }
+    }
+
+    synchronized void flush() throws DataAccessException {
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        try {
+            journal.force(false);
+        } catch (IOException ex) {
+            throw new DataAccessException("failed to sync game journal", ex);
+        }
+        // updates removed from the queue since the flush started
+        Set<Journaled> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (mayBeStored) {
+            removed.addAll(skipStoredUpdates());
+            mayBeStored = false;
+        }
+        // take the updates that were queued when the flush started, so a busy game cannot hold it up
+        List<Journaled> queued = new ArrayList<>();
+        Iterator<Journaled> iterator = unflushed.iterator();
+        for (int remaining = unflushed.size(); remaining > 0 && iterator.hasNext(); remaining--) {
+            queued.add(iterator.next());
+        }
+        // games with an update that was not written, whose later updates have to wait for it
+        Set<Integer> heldBack = new HashSet<>();
+        for (int from = 0; from < queued.size(); from += MAX_BATCH_SIZE) {
+            List<Journaled> batch = new ArrayList<>();
+            for (Journaled update : queued.subList(from, Math.min(from + MAX_BATCH_SIZE, queued.size()))) {
+                if (!removed.contains(update) && !heldBack.contains(update.gameID())) {
+                    batch.add(update);
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch, removed, heldBack);
+            }
+        }
+        compactJournal();
+    }
+
+    /**
+     * Writes a batch of updates, or as many of its games as the delegate accepts if it rejects the batch
+     *
+     * @param removed  collects the updates that are no longer queued
+     * @param heldBack collects the games that still have an update of this batch queued
+     * @throws DataAccessException if no game could be written and none was rejected as a conflict,
+     *                             which means the delegate is unavailable rather than rejecting particular games
+     */
+    private void writeBatch(List<Journaled> batch, Set<Journaled> removed, Set<Integer> heldBack)
+            throws DataAccessException {
+        try {
+            delegate.applyUpdates(updatesOf(batch));
+            written(batch, removed);
+            return;
+        } catch (DataAccessException ex) {
+            // MySQLGameDao stores none of a failed batch, but other DAOs may have stored part of it
+            mayBeStored = true;
+            removed.addAll(skipStoredUpdates());
+            mayBeStored = false;
+            batch.removeIf(removed::contains);
+            if (batch.isEmpty()) {
+                return;
+            }
+            Map<Integer, List<Journaled>> byGame = new LinkedHashMap<>();
+            for (Journaled update : batch) {
+                byGame.computeIfAbsent(update.gameID(), _ -> new ArrayList<>()).add(update);
+            }
+            Map<Integer, DataAccessException> failures = new LinkedHashMap<>();
+            for (Map.Entry<Integer, List<Journaled>> game : byGame.entrySet()) {
+                try {
+                    delegate.applyUpdates(updatesOf(game.getValue()));
+                    written(game.getValue(), removed);
+                } catch (DataAccessException gameEx) {
+                    failures.put(game.getKey(), gameEx);
+                }
+            }
+            heldBack.addAll(failures.keySet());
+            if (failures.size() == byGame.size()
+                    && failures.values().stream().noneMatch(ConcurrentUpdateException.class::isInstance)) {
+                mayBeStored = true;
+                throw ex;
+            }
+            for (Map.Entry<Integer, DataAccessException> failure : failures.entrySet()) {
+                reject(failure.getKey(), failure.getValue(), removed);
+            }
+        }
+    }
+
+    private void written(List<Journaled> updates, Set<Journaled> removed) {
+        Set<Journaled> done = Collections.newSetFromMap(new IdentityHashMap<>());
+        done.addAll(updates);
+        unflushed.removeIf(done::contains);
+        removed.addAll(done);
+        for (Journaled update : updates) {
+            rejections.remove(update.gameID());
+            // a newer update of the same game stays pending
+            pending.remove(update.gameID(), update.update().gameData());
+        }
+        synchronized (journalLock) {
+            forgetFlushedVersions(updates);
+        }
+    }
+
+    private void reject(int gameID, DataAccessException ex, Set<Journaled> removed) {
+        int failures = rejections.merge(gameID, 1, Integer::sum);
+        if (!(ex instanceof ConcurrentUpdateException) && failures < MAX_REJECTIONS) {
+            LOG.warn("Failed to write game {}; it will be retried", gameID, ex);
+            return;
+        }
+        rejections.remove(gameID);
+        int kept;
+        synchronized (journalLock) {
+            List<Journaled> held = quarantined.computeIfAbsent(gameID, _ -> new ArrayList<>());
+            unflushed.removeIf(update -> {
+                if (update.gameID() != gameID) {
+                    return false;
+                }
+                held.add(update);
+                removed.add(update);
+                return true;
+            });
+            kept = held.size();
+            // read the game from the delegate again, and check its next update against the stored version
+            pending.remove(gameID);
+            if (versions.remove(gameID) != null) {
+                forgottenVersions[stripe(gameID)]++;
+            }
+        }
+        LOG.error("Quarantined game {} after the database rejected its update; its {} unwritten updates "
+                + "are kept in the game journal and retried when the server restarts", gameID, kept, ex);
+    }
+
+    /**
+     * Forgets the versions of the games that no longer have pending updates. Must hold the journal's lock.
+     */
+    private void forgetFlushedVersions(Collection<Journaled> updates) {
+        for (Journaled update : updates) {
+            int gameID = update.gameID();
+            if (!pending.containsKey(gameID) && versions.remove(gameID) != null) {
+                forgottenVersions[stripe(gameID)]++;
+            }
+        }
+    }
+
+    private int stripe(int gameID) {
+        return Math.floorMod(gameID, forgottenVersions.length);
+    }
+
+    /**
+     * Drops the updates the underlying DAO has already stored. An update is stored if the stored
+     * version of its game is later, or is the same version with the same players and board.
+     *
+     * @return the updates that were dropped
+     */
+    private List<Journaled> skipStoredUpdates() throws DataAccessException {
+        Map<Integer, GameData> stored = new HashMap<>();
+        for (Journaled update : unflushed) {
+            if (!stored.containsKey(update.gameID())) {
+                stored.put(update.gameID(), delegate.getGame(update.gameID()));
+            }
+        }
+        // games whose stored version does not match the journaled update with the same version
+        Set<Integer> conflicting = new HashSet<>();
+        for (Journaled update : unflushed) {
+            GameData storedGame = stored.get(update.gameID());
+            GameData journaled = update.update().gameData();
+            if (storedGame != null && storedGame.version() == journaled.version() && !sameState(storedGame, journaled)) {
+                conflicting.add(storedGame.gameID());
+            }
+        }
+        for (int gameID : conflicting) {
+            LOG.warn("Game {} was changed elsewhere after it was journaled", gameID);
+        }
+        List<Journaled> skipped = new ArrayList<>();
+        unflushed.removeIf(update -> {
+            GameData storedGame = stored.get(update.gameID());
+            boolean isStored = storedGame != null && !conflicting.contains(storedGame.gameID())
+                    && update.update().gameData().version() <= storedGame.version();
+            if (isStored) {
+                pending.remove(update.gameID(), update.update().gameData());
+                skipped.add(update);
+            }
+            return isStored;
+        });
+        synchronized (journalLock) {
+            forgetFlushedVersions(skipped);
+        }
+        return skipped;
+    }
+
+    private static boolean sameState(GameData a, GameData b) {
+        return Objects.equals(a.whiteUsername(), b.whiteUsername())
+                && Objects.equals(a.blackUsername(), b.blackUsername())
+                && GameCodec.encode(a.game()).equals(GameCodec.encode(b.game()));
+    }
+
+    private static List<GameUpdate> updatesOf(List<Journaled> journaled) {
+        return journaled.stream().map(Journaled::update).toList();
+    }
+
+    /**
+     * Empties the journal if nothing is left to write, or rewrites it with just the unwritten
+     * updates once they take up less than half of it
+     */
+    private void compactJournal() throws DataAccessException {
+        synchronized (journalLock) {
+            try {
+                if (unflushed.isEmpty() && quarantined.isEmpty()) {
+                    journal.truncate(0);
+                    return;
+                }
+                long size = journal.size();
+                if (size < COMPACTION_THRESHOLD_BYTES) {
+                    return;
+                }
+                // a game's quarantined updates come before any it has queued
+                List<Journaled> live = new ArrayList<>();
+                quarantined.values().forEach(live::addAll);
+                live.addAll(unflushed);
+                long liveBytes = 0;
+                for (Journaled update : live) {
+                    liveBytes += update.entry().length;
+                }
+                if (liveBytes * 2 > size) {
+                    return;
+                }
+                Path compacted = journalPath.resolveSibling(journalPath.getFileName() + ".compact");
+                try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    for (Journaled update : live) {
+                        out.write(ByteBuffer.wrap(update.entry()));
+                    }
+                    out.force(false);
+                }
+                Files.move(compacted, journalPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                journal.close();
+                journal = openJournal();
+            } catch (IOException ex) {
+                throw new DataAccessException("failed to compact game journal", ex);
+            }
+        }
+    }
+
+    /**
+     * An update and its journal entry, so the journal can be rewritten without encoding the game again
+     */
+    private record Journaled(GameUpdate update, byte[] entry) {
+        int gameID() {
+            return update.gameData().gameID();
+        }
+    }
+
+    private record JournalEntry(int gameID, String whiteUsername, String blackUsername, String gameName, String game,
+                                int version, String move) {
+        static JournalEntry of(GameUpdate update) {
+            GameData gameData = update.gameData();
+            return new JournalEntry(
+                    gameData.gameID(),
+                    gameData.whiteUsername(),
+                    gameData.blackUsername(),
+                    gameData.gameName(),
+                    GameCodec.encode(gameData.game()),
+                    gameData.version(),
+                    update.move() == null ? null : MoveNotation.format(update.move())
+            );
+        }
+
+        GameUpdate toUpdate() {
+            GameData gameData = new GameData(gameID, whiteUsername, blackUsername, gameName, GameCodec.decode(game),
+                    version);
+            return new GameUpdate(gameData, move == null ? null : MoveNotation.parse(move));
+        }
+    }
+}
@@ -4,22 +4,36 @@ import com.google.gson.Gson;
 import dataaccess.*;
 import io.javalin.*;
 import io.javalin.http.Context;
+import model.GameSummary;
 import model.request.CreateRequest;
 import model.request.JoinRequest;
+import model.request.ListGamesRequest;
 import model.request.LoginRequest;
 import model.request.RegisterRequest;
 import org.jetbrains.annotations.NotNull;
 import model.result.CreateResult;
 import model.result.ListGamesResult;
 import model.result.LoginResult;
+import server.websocket.OverflowPolicy;
 import server.websocket.WebsocketHandler;
+import server.websocket.WebsocketMessenger;
 import service.GameService;
 import service.ServiceException;
 import service.UserService;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.Map;
 
 public class Server {
+    // the most messages that can wait to be sent to one websocket client before its overflow policy applies
+    private static final int WEBSOCKET_OUTBOX_CAPACITY = Integer.getInteger("chess.websocket.outboxCapacity", 64);
+    private static final OverflowPolicy WEBSOCKET_OVERFLOW_POLICY = OverflowPolicy.valueOf(
+            System.getProperty("chess.websocket.overflowPolicy", "DROP_STALE_GAMES").toUpperCase(Locale.ROOT));
+    // games listed by GET /game when the request has no limit, and the highest limit it accepts
+    private static final int DEFAULT_GAMES_PAGE_SIZE = 100;
+    private static final int MAX_GAMES_PAGE_SIZE = 500;
 
     private final Javalin javalin;
     private final Gson gson;
@@ -27,21 +41,32 @@ public class Server {
     private final GameService gameService;
     private final AuthDao authDao;
     private final UserDao userDao;
-    private final GameDao gameDao;
+    private final ActiveGameCache gameDao;
+    private WriteBehindGameDao writeBehindGameDao;
+    private final WebsocketMessenger websocketMessenger;
     private final WebsocketHandler websocketHandler;
 
     public Server() {
         gson = new Gson();
         try {
-            authDao = new MySQLAuthDao();
+            DatabaseManager.migrate();
+            authDao = new CachingAuthDao(new MySQLAuthDao(), DatabaseManager.getAuthCacheMaxSize(),
+                    Duration.ofMillis(DatabaseManager.getAuthCacheTimeToLiveMs()));
             userDao = new MySQLUserDao();
-            gameDao = new MySQLGameDao();
+            GameDao storedGames = new MySQLGameDao();
+            if (DatabaseManager.getJournalPath() != null) {
+                writeBehindGameDao = new WriteBehindGameDao(storedGames,
+                        Path.of(DatabaseManager.getJournalPath()), DatabaseManager.getJournalFlushIntervalMs());
+                storedGames = writeBehindGameDao;
+            }
+            gameDao = new ActiveGameCache(storedGames);
         } catch (DataAccessException e) {
             throw new RuntimeException(e);
         }
         userService = new UserService(userDao, authDao);
         gameService = new GameService(gameDao, authDao);
-        websocketHandler = new WebsocketHandler(gameDao, authDao);
+        websocketMessenger = new WebsocketMessenger(WEBSOCKET_OUTBOX_CAPACITY, WEBSOCKET_OVERFLOW_POLICY);
+        websocketHandler = new WebsocketHandler(gameDao, authDao, websocketMessenger);
 
         javalin = Javalin.create(config -> config.staticFiles.add("web"));
 
@@ -53,13 +78,15 @@ public class Server {
         javalin.post("/game", this::createGameHandler);
         javalin.put("/game", this::joinGameHandler);
         javalin.delete("/db", this::clearHandler);
+        javalin.get("/metrics/websocket", this::websocketMetricsHandler);
+        javalin.get("/metrics/journal", this::journalMetricsHandler);
         javalin.ws("/ws", ws -> {
             ws.onConnect(ctx -> {
                 ctx.enableAutomaticPings();
                 System.out.println("Websocket Connected");
             });
             ws.onMessage(websocketHandler::handleMessage);
-            ws.onClose(_ -> System.out.println("Websocket closed"));
+            ws.onClose(websocketHandler::handleClose);
         });
 
         javalin.exception(ServiceException.class, this::exceptionHandler);
@@ -95,11 +122,32 @@ public class Server {
     private void getGamesHandler(@NotNull Context context) throws ServiceException {
         String authToken = context.header("authorization");
         assertAuthTokenNotBad(authToken);
-        ListGamesResult result = gameService.listGames(authToken);
+        ListGamesResult result = gameService.listGames(authToken, parseListGamesRequest(context));
         context.status(200);
         context.json(gson.toJson(result));
     }
 
+    private ListGamesRequest parseListGamesRequest(Context context) throws ServiceException {
+        GameSummary.Status status = null;
+        int limit = DEFAULT_GAMES_PAGE_SIZE;
+        try {
+            String statusParam = context.queryParam("status");
+            if (statusParam != null) {
+                status = GameSummary.Status.valueOf(statusParam.toUpperCase(Locale.ROOT));
+            }
+            String limitParam = context.queryParam("limit");
+            if (limitParam != null) {
+                limit = Integer.parseInt(limitParam);
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new ServiceException(ServiceException.ServiceExceptionType.BAD_REQUEST);
+        }
+        if (limit < 1 || limit > MAX_GAMES_PAGE_SIZE) {
+            throw new ServiceException(ServiceException.ServiceExceptionType.BAD_REQUEST);
+        }
+        return new ListGamesRequest(status, context.queryParam("cursor"), limit);
+    }
+
     private void createGameHandler(@NotNull Context context) throws ServiceException {
         String authToken = context.header("authorization");
         assertAuthTokenNotBad(authToken);
@@ -134,6 +182,31 @@ public class Server {
         }
     }
 
+    private void websocketMetricsHandler(@NotNull Context context) {
+        WebsocketMessenger.Metrics metrics = websocketMessenger.getMetrics();
+        context.status(200);
+        context.json(gson.toJson(Map.of(
+                "queueDepth", websocketMessenger.getQueueDepth(),
+                "maxQueueDepth", metrics.getMaxQueueDepth(),
+                "queuedMessages", metrics.getQueuedMessages(),
+                "discardedMessages", metrics.getDiscardedMessages(),
+                "disconnects", metrics.getDisconnects(),
+                "failedWrites", metrics.getFailedWrites()
+        )));
+    }
+
+    private void journalMetricsHandler(@NotNull Context context) {
+        if (writeBehindGameDao == null) {
+            context.status(404);
+            return;
+        }
+        context.status(200);
+        context.json(gson.toJson(Map.of(
+                "pendingUpdates", writeBehindGameDao.getPendingUpdates(),
+                "quarantinedGames", writeBehindGameDao.getQuarantinedGames()
+        )));
+    }
+
     private void assertAuthTokenNotBad(String authToken) throws ServiceException {
         if (authToken == null || authToken.isEmpty()) {
             throw new ServiceException(ServiceException.ServiceExceptionType.BAD_REQUEST);
@@ -154,6 +227,10 @@ public class Server {
                 context.status(403);
                 context.json(gson.toJson(Map.of("message", "Error: already taken")));
             }
+            case CONFLICT -> {
+                context.status(409);
+                context.json(gson.toJson(Map.of("message", "Error: the game was just changed, please try again")));
+            }
             case SERVER_ERROR -> {
                 context.status(500);
                 context.json(gson.toJson(Map.of("message", "Error: unknown server error")));
@@ -168,5 +245,13 @@ public class Server {
 
     public void stop() {
         javalin.stop();
+        if (writeBehindGameDao != null) {
+            try {
+                writeBehindGameDao.close();
+            } catch (DataAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        DatabaseManager.closePool();
     }
 }
@@ -1,37 +1,121 @@
 package server.websocket;
 
 import chess.ChessGame;
+import chess.ChessMove;
 import com.google.gson.Gson;
 import org.eclipse.jetty.websocket.api.Session;
 import websocket.messages.LoadGameMessage;
+import websocket.messages.MoveMessage;
 import websocket.messages.NotificationMessage;
 import websocket.messages.ServerMessage;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Tracks which websocket sessions are connected to which games. Sessions can be added and removed
+ * while messages are being sent to a game; a send reaches every session that stays connected
+ * throughout it. Games with no sessions left are removed.
+ * <p>
+ * Every message broadcast to a game is stamped with the next number in the game's {@link GameStream},
+ * and the most recent ones are kept so a client that reconnects can be sent the ones it missed. Streams
+ * outlive their sessions, so that clients can resume after everyone has been disconnected at once,
+ * and are discarded after a game has had no sessions and no messages for a while.
+ */
 public class ConnectionManager {
+    private static final int REPLAY_BUFFER_SIZE = 128;
+    private static final long STREAM_IDLE_MILLIS = 10 * 60 * 1000;
+
     private final Gson gson = new Gson();
-    private final WebsocketMessenger msgr = new WebsocketMessenger();
-    private final Map<Integer, List<Session>> sessions = new ConcurrentHashMap<>();
+    private final WebsocketMessenger msgr;
+    // the sessions connected to each game
+    private final Map<Integer, Map<Session, Connection>> sessions = new ConcurrentHashMap<>();
+    // the games each session is connected to, so they can be found when the session closes
+    private final Map<Session, Set<Integer>> gamesBySession = new ConcurrentHashMap<>();
+    private final Map<Integer, GameStream> streams = new ConcurrentHashMap<>();
 
-    public void add(Session s, int key) {
-        if (!sessions.containsKey(key)) {
-            sessions.put(key, new ArrayList<>());
-        }
-        sessions.get(key).add(s);
+    public ConnectionManager(WebsocketMessenger msgr) {
+        this.msgr = msgr;
+    }
+
+    /**
+     * @param username   the user the session is authenticated as
+     * @param moveDeltas whether to send the session a MOVE message instead of LOAD_GAME after each move
+     * @return false if the session was already connected to the game
+     */
+    public boolean add(Session s, int key, String username, boolean moveDeltas) {
+        // insert inside compute, so a remove emptying the same map cannot drop it between lookup and insert
+        boolean[] added = new boolean[1];
+        sessions.compute(key, (_, gameSessions) -> {
+            if (gameSessions == null) {
+                gameSessions = new ConcurrentHashMap<>();
+            }
+            added[0] = gameSessions.put(s, new Connection(username, moveDeltas)) == null;
+            return gameSessions;
+        });
+        gamesBySession.compute(s, (_, games) -> {
+            if (games == null) {
+                games = ConcurrentHashMap.newKeySet();
+            }
+            games.add(key);
+            return games;
+        });
+        return added[0];
     }
 
-    public void remove(Session s, int key) {
-        sessions.get(key).remove(s);
+    /**
+     * @return true if the session was connected to the game
+     */
+    public boolean remove(Session s, int key) {
+        boolean[] removed = new boolean[1];
+        sessions.computeIfPresent(key, (_, gameSessions) -> {
+            removed[0] = gameSessions.remove(s) != null;
+            return gameSessions.isEmpty() ? null : gameSessions;
+        });
+        gamesBySession.computeIfPresent(s, (_, games) -> {
+            games.remove(key);
+            return games.isEmpty() ? null : games;
+        });
+        return removed[0];
     }
 
+    /**
+     * Removes a session from every game it is connected to, e.g. when it closes
+     *
+     * @return the games the session was connected to
+     */
+    public Set<Integer> removeSession(Session s) {
+        Set<Integer> games = gamesBySession.remove(s);
+        if (games == null) {
+            return Set.of();
+        }
+        for (int key : games) {
+            sessions.computeIfPresent(key, (_, gameSessions) -> {
+                gameSessions.remove(s);
+                return gameSessions.isEmpty() ? null : gameSessions;
+            });
+        }
+        return games;
+    }
+
+    /**
+     * Sends a message to every session connected to a game except excludedSession. The message is
+     * not replayed to the excluded session's user either, e.g. when they resume on a new connection.
+     */
     public void sendToAll(int key, Session excludedSession, ServerMessage msg) {
-        for (Session s : sessions.get(key)) {
+        GameStream stream = stream(key);
+        long sequence = stream.nextSequence();
+        msg.setSequence(sequence);
+        // encode once and send the same text to every session
+        WebsocketMessenger.Encoded payload = msgr.encode(msg);
+        Map<Session, Connection> gameSessions = sessions.getOrDefault(key, Map.of());
+        Connection excluded = excludedSession == null ? null : gameSessions.get(excludedSession);
+        stream.record(sequence, payload, payload, excluded == null ? null : excluded.username());
+        for (Session s : gameSessions.keySet()) {
             if (s != excludedSession) {
-                msgr.send(s, msg);
+                msgr.sendRaw(s, payload);
             }
         }
     }
@@ -40,7 +124,66 @@ public class ConnectionManager {
         sendToAll(key, excludedSession, new NotificationMessage(notification));
     }
 
-    public void loadGameAll(int key, Session excludedSession, ChessGame game) {
-        sendToAll(key, excludedSession, new LoadGameMessage(gson.toJson(game)));
+    /**
+     * Sends the game after a move to every session connected to it: a MOVE message to sessions that
+     * asked for them and a full LOAD_GAME to the rest. Both messages share one sequence number and
+     * are each encoded once.
+     */
+    public void broadcastMove(int key, ChessGame game, ChessMove move) {
+        GameStream stream = stream(key);
+        long sequence = stream.nextSequence();
+        ServerMessage fullGameMsg = new LoadGameMessage(gson.toJson(game));
+        fullGameMsg.setSequence(sequence);
+        ServerMessage deltaMsg = new MoveMessage(move, game.getPly(), game.evaluateStatus());
+        deltaMsg.setSequence(sequence);
+        WebsocketMessenger.Encoded fullGame = msgr.encode(fullGameMsg);
+        WebsocketMessenger.Encoded delta = msgr.encode(deltaMsg);
+        stream.record(sequence, fullGame, delta, null);
+        for (Map.Entry<Session, Connection> entry : sessions.getOrDefault(key, Map.of()).entrySet()) {
+            msgr.sendRaw(entry.getKey(), entry.getValue().moveDeltas() ? delta : fullGame);
+        }
+    }
+
+    /**
+     * Sends the whole game to one session, stamped with the number of the game's last broadcast
+     */
+    public void sendGame(Session s, int key, ChessGame game) {
+        ServerMessage msg = new LoadGameMessage(gson.toJson(game));
+        msg.setSequence(stream(key).lastSequence());
+        msgr.send(s, msg);
+    }
+
+    /**
+     * Sends a session the messages broadcast to a game after the given sequence number, except those
+     * that were not sent to the user originally
+     *
+     * @return false if some of those messages are no longer kept, in which case nothing is sent
+     */
+    public boolean replay(Session s, int key, String username, long lastSequence, boolean moveDeltas) {
+        List<WebsocketMessenger.Encoded> missed = stream(key).since(lastSequence, moveDeltas, username);
+        if (missed == null) {
+            return false;
+        }
+        for (WebsocketMessenger.Encoded msg : missed) {
+            msgr.sendRaw(s, msg);
+        }
+        return true;
+    }
+
+    private GameStream stream(int key) {
+        GameStream stream = streams.get(key);
+        if (stream == null) {
+            discardIdleStreams();
+            stream = streams.computeIfAbsent(key, _ -> new GameStream(REPLAY_BUFFER_SIZE));
+        }
+        return stream;
+    }
+
+    private void discardIdleStreams() {
+        long cutoff = System.currentTimeMillis() - STREAM_IDLE_MILLIS;
+        streams.entrySet().removeIf(entry -> !sessions.containsKey(entry.getKey()) && entry.getValue().idleSince(cutoff));
+    }
+
+    private record Connection(String username, boolean moveDeltas) {
     }
 }
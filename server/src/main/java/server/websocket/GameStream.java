@@ -0,0 +1,89 @@
+package server.websocket;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The numbered broadcasts of one game, with the most recent ones kept so a reconnecting client can
+ * be sent just the ones it missed.
+ * <p>
+ * Sequence numbers start from the second the stream was created, shifted left 20 bits, so numbers
+ * from a stream created later (after the server restarts, or after an idle stream is discarded)
+ * are higher than any number handed out before unless a stream averaged over a million messages a
+ * second. They stay below 2^53 until the year 2242, so JavaScript clients can send them back
+ * exactly. Not thread safe: a stream is only used from its game's mailbox.
+ */
+class GameStream {
+    private final int capacity;
+    private final Deque<Entry> recent = new ArrayDeque<>();
+    private long lastSequence;
+    // read when discarding idle streams from other games' mailboxes
+    private volatile long lastActivityMillis;
+
+    GameStream(int capacity) {
+        this(capacity, System.currentTimeMillis());
+    }
+
+    GameStream(int capacity, long createdMillis) {
+        this.capacity = capacity;
+        this.lastActivityMillis = createdMillis;
+        this.lastSequence = (createdMillis / 1000) << 20;
+    }
+
+    /**
+     * @return the sequence number of the last broadcast
+     */
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    long nextSequence() {
+        lastActivityMillis = System.currentTimeMillis();
+        return ++lastSequence;
+    }
+
+    /**
+     * Keeps a broadcast for replay, forgetting the oldest one if the stream is full
+     *
+     * @param fullGame         the message sent to sessions that want full games
+     * @param delta            the message sent to sessions that want MOVE messages, which may be the same message
+     * @param excludedUsername the user the message was not sent to, or null if it was sent to everyone
+     */
+    void record(long sequence, WebsocketMessenger.Encoded fullGame, WebsocketMessenger.Encoded delta,
+                String excludedUsername) {
+        if (recent.size() >= capacity) {
+            recent.removeFirst();
+        }
+        recent.addLast(new Entry(sequence, fullGame, delta, excludedUsername));
+    }
+
+    /**
+     * @return the broadcasts after the given sequence number that were sent to the user, or null if
+     * some of them are no longer kept
+     */
+    List<WebsocketMessenger.Encoded> since(long sequence, boolean moveDeltas, String username) {
+        if (sequence > lastSequence) {
+            return null;
+        }
+        if (sequence == lastSequence) {
+            return List.of();
+        }
+        if (recent.isEmpty() || recent.getFirst().sequence() > sequence + 1) {
+            return null;
+        }
+        return recent.stream()
+                .filter(entry -> entry.sequence() > sequence)
+                .filter(entry -> entry.excludedUsername() == null || !entry.excludedUsername().equals(username))
+                .map(entry -> moveDeltas ? entry.delta() : entry.fullGame())
+                .toList();
+    }
+
+    boolean idleSince(long millis) {
+        return lastActivityMillis < millis;
+    }
+
+    private record Entry(long sequence, WebsocketMessenger.Encoded fullGame, WebsocketMessenger.Encoded delta,
+                         String excludedUsername) {
+    }
+}
@@ -0,0 +1,21 @@
+package server.websocket;
+
+/**
+ * What a session's outbox does with messages for a client that is not keeping up
+ */
+public enum OverflowPolicy {
+    /**
+     * When the outbox is full, drop every queued LOAD_GAME except the newest, since each one
+     * replaces the board sent before it. Disconnect the client if that does not free any room.
+     */
+    DROP_STALE_GAMES,
+    /**
+     * Keep at most one LOAD_GAME queued at any time, replacing it whenever a newer board is sent.
+     * Disconnect the client if the outbox is still full.
+     */
+    COALESCE,
+    /**
+     * Disconnect the client as soon as the outbox is full
+     */
+    DISCONNECT
+}
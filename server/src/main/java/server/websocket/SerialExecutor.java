@@ -0,0 +1,58 @@
+package server.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs submitted tasks one at a time, in the order they were submitted, on threads borrowed from
+ * another executor. Tasks are queued without blocking the caller, and no thread is held while
+ * the queue is empty.
+ */
+public class SerialExecutor implements Executor {
+    private static final Logger LOG = LoggerFactory.getLogger(SerialExecutor.class);
+
+    private final Executor backingExecutor;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public SerialExecutor(Executor backingExecutor) {
+        this.backingExecutor = backingExecutor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        schedule();
+    }
+
+    private void schedule() {
+        if (running.compareAndSet(false, true)) {
+            backingExecutor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Throwable ex) {
+                    // keep draining, or every game sharing this executor would stop
+                    LOG.error("Websocket command failed", ex);
+                }
+            }
+        } finally {
+            running.set(false);
+            // a task may have been queued after the last poll but before running was cleared
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import websocket.messages.ServerMessage.ServerMessageType;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Messages waiting to be sent to one session. At most one message is being written at a time, and
+ * the next one is started when Jetty reports it written, so a slow client never blocks the sender.
+ */
+class SessionOutbox implements WriteCallback {
+    private static final Logger LOG = LoggerFactory.getLogger(SessionOutbox.class);
+
+    private final Session session;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final WebsocketMessenger.Metrics metrics;
+    // guarded by this
+    private final Deque<WebsocketMessenger.Encoded> queue = new ArrayDeque<>();
+    private boolean writing;
+    private boolean closed;
+
+    SessionOutbox(Session session, int capacity, OverflowPolicy policy, WebsocketMessenger.Metrics metrics) {
+        this.session = session;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    void send(WebsocketMessenger.Encoded message) {
+        WebsocketMessenger.Encoded next = null;
+        boolean disconnect = false;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (policy == OverflowPolicy.COALESCE && message.type() == ServerMessageType.LOAD_GAME) {
+                dropQueuedGames();
+            }
+            if (queue.size() >= capacity && (policy == OverflowPolicy.DISCONNECT || !makeRoom(message))) {
+                closed = true;
+                disconnect = true;
+                metrics.disconnected(queue.size());
+                queue.clear();
+            } else {
+                queue.add(message);
+                metrics.queued(queue.size());
+                next = startNext();
+            }
+        }
+        if (disconnect) {
+            session.close(StatusCode.POLICY_VIOLATION, "client is not keeping up");
+        } else if (next != null) {
+            write(next);
+        }
+    }
+
+    /**
+     * Discards the queued messages, e.g. when the session has closed
+     */
+    synchronized void close() {
+        closed = true;
+        metrics.discarded(queue.size());
+        queue.clear();
+    }
+
+    synchronized int depth() {
+        return queue.size();
+    }
+
+    @Override
+    public void writeSuccess() {
+        WebsocketMessenger.Encoded next;
+        synchronized (this) {
+            writing = false;
+            next = startNext();
+        }
+        if (next != null) {
+            write(next);
+        }
+    }
+
+    @Override
+    public void writeFailed(Throwable ex) {
+        // clients going away mid-write is routine, so it is counted rather than logged loudly
+        metrics.writeFailed();
+        LOG.debug("Failed to send a websocket message", ex);
+        close();
+        // nothing more can be sent, so the client has to reconnect to hear about the game again
+        session.close(StatusCode.SERVER_ERROR, "failed to send a message");
+    }
+
+    private void write(WebsocketMessenger.Encoded message) {
+        session.getRemote().sendString(message.text(), this);
+    }
+
+    // removes the next message to write from the queue, unless one is already being written
+    private WebsocketMessenger.Encoded startNext() {
+        if (writing || closed || queue.isEmpty()) {
+            return null;
+        }
+        writing = true;
+        return queue.poll();
+    }
+
+    private boolean makeRoom(WebsocketMessenger.Encoded incoming) {
+        if (incoming.type() == ServerMessageType.LOAD_GAME) {
+            // the incoming board replaces every queued one
+            return dropQueuedGames() > 0;
+        }
+        // keep the newest queued board
+        boolean newest = true;
+        int dropped = 0;
+        for (Iterator<WebsocketMessenger.Encoded> it = queue.descendingIterator(); it.hasNext(); ) {
+            if (it.next().type() == ServerMessageType.LOAD_GAME) {
+                if (!newest) {
+                    it.remove();
+                    dropped++;
+                }
+                newest = false;
+            }
+        }
+        metrics.discarded(dropped);
+        return dropped > 0;
+    }
+
+    private int dropQueuedGames() {
+        int before = queue.size();
+        queue.removeIf(queued -> queued.type() == ServerMessageType.LOAD_GAME);
+        int dropped = before - queue.size();
+        metrics.discarded(dropped);
+        return dropped;
+    }
+}
@@ -1,40 +1,95 @@
 package server.websocket;
 
+import chess.ChessGame;
 import chess.InvalidMoveException;
 import com.google.gson.Gson;
+import dataaccess.ActiveGameCache;
 import dataaccess.AuthDao;
+import dataaccess.ConcurrentUpdateException;
 import dataaccess.DataAccessException;
-import dataaccess.GameDao;
+import io.javalin.websocket.WsCloseContext;
 import io.javalin.websocket.WsMessageContext;
 import model.AuthData;
 import model.GameData;
 import websocket.commands.*;
-import websocket.messages.ErrorMessage;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import static chess.ChessGame.TeamColor.BLACK;
 import static chess.ChessGame.TeamColor.WHITE;
 
 public class WebsocketHandler {
+    // commands for games in the same stripe run one at a time, in the order they arrived
+    private static final int MAILBOX_STRIPES = 256;
+    // commands on one game run one at a time, so this only happens when the game is changed over HTTP meanwhile
+    private static final String CONCURRENT_UPDATE_ERROR = "Error: the game was just changed, please try again";
+
     private final Gson gson = new Gson();
-    private final GameDao gameDao;
+    private final ActiveGameCache gameDao;
     private final AuthDao authDao;
-    private final ConnectionManager connMgr = new ConnectionManager();
-    private final WebsocketMessenger msgr = new WebsocketMessenger();
+    private final WebsocketMessenger msgr;
+    private final ConnectionManager connMgr;
+    private final SerialExecutor[] mailboxes = new SerialExecutor[MAILBOX_STRIPES];
 
-    public WebsocketHandler(GameDao gameDao, AuthDao authDao) {
+    public WebsocketHandler(ActiveGameCache gameDao, AuthDao authDao, WebsocketMessenger msgr) {
         this.gameDao = gameDao;
         this.authDao = authDao;
+        this.msgr = msgr;
+        this.connMgr = new ConnectionManager(msgr);
+        Executor virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < mailboxes.length; i++) {
+            mailboxes[i] = new SerialExecutor(virtualThreads);
+        }
     }
 
+    /**
+     * Parses a command on the calling thread, then queues it on its game's mailbox so that each game
+     * is only ever changed by one command at a time, while different games run in parallel.
+     */
     public void handleMessage(WsMessageContext ctx) {
         UserGameCommand cmd = gson.fromJson(ctx.message(), UserGameCommand.class);
-        switch (cmd.getCommandType()) {
-            case CONNECT -> connect(ctx, gson.fromJson(ctx.message(), ConnectCommand.class));
-            case MAKE_MOVE -> handleMakeMove(ctx, gson.fromJson(ctx.message(), MakeMoveCommand.class));
-            case RESIGN -> handleResign(ctx, gson.fromJson(ctx.message(), ResignCommand.class));
-            case LEAVE -> handleLeave(ctx, gson.fromJson(ctx.message(), LeaveCommand.class));
-            default -> ctx.send("Unknown ws message: " + ctx.message());
+        if (cmd == null || cmd.getCommandType() == null) {
+            msgr.sendError(ctx.session, "Error: unknown command");
+            return;
         }
+        Runnable task = switch (cmd.getCommandType()) {
+            case CONNECT -> {
+                ConnectCommand connectCmd = gson.fromJson(ctx.message(), ConnectCommand.class);
+                yield () -> connect(ctx, connectCmd);
+            }
+            case MAKE_MOVE -> {
+                MakeMoveCommand moveCmd = gson.fromJson(ctx.message(), MakeMoveCommand.class);
+                yield () -> handleMakeMove(ctx, moveCmd);
+            }
+            case RESIGN -> {
+                ResignCommand resignCmd = gson.fromJson(ctx.message(), ResignCommand.class);
+                yield () -> handleResign(ctx, resignCmd);
+            }
+            case LEAVE -> {
+                LeaveCommand leaveCmd = gson.fromJson(ctx.message(), LeaveCommand.class);
+                yield () -> handleLeave(ctx, leaveCmd);
+            }
+            case RESUME -> {
+                ResumeCommand resumeCmd = gson.fromJson(ctx.message(), ResumeCommand.class);
+                yield () -> handleResume(ctx, resumeCmd);
+            }
+        };
+        mailboxFor(cmd.getGameID()).execute(task);
+    }
+
+    /**
+     * Disconnects a closed session from its games, releasing each game it was the last session of
+     */
+    public void handleClose(WsCloseContext ctx) {
+        msgr.remove(ctx.session);
+        for (int gameID : connMgr.removeSession(ctx.session)) {
+            mailboxFor(gameID).execute(() -> gameDao.unpin(gameID));
+        }
+    }
+
+    private SerialExecutor mailboxFor(Integer gameID) {
+        return mailboxes[Math.floorMod(gameID == null ? 0 : gameID, mailboxes.length)];
     }
 
     private void connect(WsMessageContext ctx, ConnectCommand cmd) {
@@ -43,33 +98,74 @@ public class WebsocketHandler {
         // validate gameID and authToken
         try {
             auth = authDao.getAuth(cmd.getAuthToken());
-            game = gameDao.getGame(cmd.getGameID());
+            // keep the game in memory while this session is connected to it
+            game = auth == null ? null : gameDao.pin(cmd.getGameID());
         } catch (DataAccessException ex) {
-            ctx.send(gson.toJson(new ErrorMessage("Error: unable to retrieve game from database")));
+            msgr.sendError(ctx.session, "Error: unable to retrieve game from database");
             return;
         }
         if (game == null || auth == null) {
-            ctx.send(gson.toJson(new ErrorMessage("Error: bad request")));
+            msgr.sendError(ctx.session, "Error: bad request");
             return;
         }
 
         // send load game message
-        msgr.sendGame(ctx.session, game.game());
+        connMgr.sendGame(ctx.session, cmd.getGameID(), game.game());
 
-        // add session to game
-        connMgr.add(ctx.session, cmd.getGameID());
+        // add session to game; a session that is already connected is asking to be sent the game again
+        if (!connMgr.add(ctx.session, cmd.getGameID(), auth.username(), cmd.wantsMoveDeltas())) {
+            gameDao.unpin(cmd.getGameID());
+            return;
+        }
+        if (!ctx.session.isOpen()) {
+            // the session closed before it was added, so handleClose did not see this game
+            connMgr.remove(ctx.session, cmd.getGameID());
+            gameDao.unpin(cmd.getGameID());
+            return;
+        }
 
         // get player role
         String role = "an observer";
-        if (game.whiteUsername().equals(auth.username())) {
+        if (auth.username().equals(game.whiteUsername())) {
             role = "white";
-        } else if (game.blackUsername().equals(auth.username())) {
+        } else if (auth.username().equals(game.blackUsername())) {
             role = "black";
         }
 
         connMgr.notifyAll(cmd.getGameID(), ctx.session, auth.username() + " has joined the game as " + role);
     }
 
+    private void handleResume(WsMessageContext ctx, ResumeCommand cmd) {
+        AuthData auth;
+        GameData game;
+        try {
+            auth = authDao.getAuth(cmd.getAuthToken());
+            game = auth == null ? null : gameDao.pin(cmd.getGameID());
+        } catch (DataAccessException ex) {
+            msgr.sendError(ctx.session, "Error: unable to retrieve game from database");
+            return;
+        }
+        if (game == null || auth == null) {
+            msgr.sendError(ctx.session, "Error: bad request");
+            return;
+        }
+
+        // a session that is already connected is only asking for what it missed
+        if (!connMgr.add(ctx.session, cmd.getGameID(), auth.username(), cmd.wantsMoveDeltas())) {
+            gameDao.unpin(cmd.getGameID());
+        } else if (!ctx.session.isOpen()) {
+            // the session closed before it was added, so handleClose did not see this game
+            connMgr.remove(ctx.session, cmd.getGameID());
+            gameDao.unpin(cmd.getGameID());
+            return;
+        }
+        // send only the missed messages if they are still kept, without announcing the reconnect
+        if (!connMgr.replay(ctx.session, cmd.getGameID(), auth.username(), cmd.getLastSequence(),
+                cmd.wantsMoveDeltas())) {
+            connMgr.sendGame(ctx.session, cmd.getGameID(), game.game());
+        }
+    }
+
     private void handleMakeMove(WsMessageContext ctx, MakeMoveCommand cmd) {
         // validate gameID and authToken
         GameData game;
@@ -88,13 +184,18 @@ public class WebsocketHandler {
                 return;
             }
 
-            // make move, send error message if invalid
-            game.game().makeMove(cmd.getMove());
+            // make move on a copy so the cached game is only replaced once the move is stored
+            ChessGame updatedGame = game.game().copy();
+            updatedGame.makeMove(cmd.getMove());
+            game = game.withGame(updatedGame);
             // update game in db
-            gameDao.updateGame(game);
+            gameDao.recordMove(game, cmd.getMove());
         } catch (InvalidMoveException ex) {
             msgr.sendError(ctx.session, "Error: invalid move");
             return;
+        } catch (ConcurrentUpdateException ex) {
+            msgr.sendError(ctx.session, CONCURRENT_UPDATE_ERROR);
+            return;
         } catch (DataAccessException e) {
             msgr.sendError(ctx.session, "There was an unexpected error.");
             return;
@@ -105,22 +206,16 @@ public class WebsocketHandler {
         connMgr.notifyAll(cmd.getGameID(), ctx.session, msg);
 
         // send load_game to all clients, and notify all clients of check/checkmate/stalemate
-        String gameStatusChangeMsg = "";
-        if (game.game().isInCheck(WHITE)) {
-            gameStatusChangeMsg = game.whiteUsername() + " is in check.";
-        } else if (game.game().isInCheck(BLACK)) {
-            gameStatusChangeMsg = game.blackUsername() + " is in check.";
-        }
+        ChessGame chessGame = game.game();
+        String playerToMove = chessGame.getTeamTurn() == WHITE ? game.whiteUsername() : game.blackUsername();
+        String gameStatusChangeMsg = switch (chessGame.evaluateStatus()) {
+            case CHECK -> playerToMove + " is in check.";
+            case CHECKMATE -> playerToMove + " is in checkmate!";
+            case STALEMATE -> "Stalemate!";
+            case ONGOING -> "";
+        };
 
-        if (game.game().isInCheckmate(WHITE)) {
-            gameStatusChangeMsg = game.whiteUsername() + " is in checkmate!";
-        } else if (game.game().isInCheckmate(BLACK)) {
-            gameStatusChangeMsg = game.blackUsername() + " is in checkmate!";
-        } else if (game.game().isInStalemate(BLACK)) {
-            gameStatusChangeMsg = "Stalemate!";
-        }
-
-        connMgr.loadGameAll(cmd.getGameID(), null, game.game());
+        connMgr.broadcastMove(cmd.getGameID(), game.game(), cmd.getMove());
         if (!gameStatusChangeMsg.isEmpty()) {
             connMgr.notifyAll(cmd.getGameID(), null, gameStatusChangeMsg);
         }
@@ -140,8 +235,12 @@ public class WebsocketHandler {
                 return;
             }
 
-            game.game().setOver();
-            gameDao.updateGame(game);
+            ChessGame updatedGame = game.game().copy();
+            updatedGame.setOver();
+            gameDao.updateGame(game.withGame(updatedGame));
+        } catch (ConcurrentUpdateException ex) {
+            msgr.sendError(ctx.session, CONCURRENT_UPDATE_ERROR);
+            return;
         } catch (DataAccessException ex) {
             msgr.sendError(ctx.session, "There was an unexpected error");
             return;
@@ -162,30 +261,21 @@ public class WebsocketHandler {
             }
 
             if (auth.username().equals(game.whiteUsername())) {
-                GameData updatedGame = new GameData(
-                        game.gameID(),
-                        null,
-                        game.blackUsername(),
-                        game.gameName(),
-                        game.game()
-                );
-                gameDao.updateGame(updatedGame);
+                gameDao.updateGame(game.withWhiteUsername(null));
             } else if (auth.username().equals(game.blackUsername())) {
-                GameData updatedGame = new GameData(
-                        game.gameID(),
-                        game.whiteUsername(),
-                        null,
-                        game.gameName(),
-                        game.game()
-                );
-                gameDao.updateGame(updatedGame);
+                gameDao.updateGame(game.withBlackUsername(null));
             }
+        } catch (ConcurrentUpdateException ex) {
+            msgr.sendError(ctx.session, CONCURRENT_UPDATE_ERROR);
+            return;
         } catch (DataAccessException ex) {
             msgr.sendError(ctx.session, "An unexpected error occurred");
             return;
         }
 
-        connMgr.remove(ctx.session, cmd.getGameID());
+        if (connMgr.remove(ctx.session, cmd.getGameID())) {
+            gameDao.unpin(cmd.getGameID());
+        }
         connMgr.notifyAll(cmd.getGameID(), null, auth.username() + " has left the game.");
     }
 }
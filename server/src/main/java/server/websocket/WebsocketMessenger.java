@@ -8,10 +8,30 @@ import websocket.messages.LoadGameMessage;
 import websocket.messages.NotificationMessage;
 import websocket.messages.ServerMessage;
 
-import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Sends messages to websocket sessions without blocking. Each session has a bounded outbox of
+ * messages waiting to be written; what happens when it fills up is decided by an {@link OverflowPolicy}.
+ */
 public class WebsocketMessenger {
     private final Gson gson = new Gson();
+    private final int outboxCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Map<Session, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+    private final Metrics metrics = new Metrics();
+
+    /**
+     * @param outboxCapacity the most messages that can wait to be sent to one session
+     * @param overflowPolicy what to do when a session's outbox is full
+     */
+    public WebsocketMessenger(int outboxCapacity, OverflowPolicy overflowPolicy) {
+        this.outboxCapacity = outboxCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
 
     public void sendGame(Session s, ChessGame game) {
         send(s, new LoadGameMessage(gson.toJson(game)));
@@ -26,10 +46,119 @@ public class WebsocketMessenger {
     }
 
     public void send(Session s, ServerMessage msg) {
-        try {
-            s.getRemote().sendString(gson.toJson(msg));
-        } catch (IOException ex) {
-            System.out.println("Something went wrong when sending a ws message");
+        sendRaw(s, encode(msg));
+    }
+
+    /**
+     * @return the JSON text of a message, which can be sent to any number of sessions with sendRaw
+     */
+    public Encoded encode(ServerMessage msg) {
+        return new Encoded(msg.getServerMessageType(), gson.toJson(msg));
+    }
+
+    /**
+     * Queues an encoded message for a session and returns without waiting for it to be written
+     */
+    public void sendRaw(Session s, Encoded message) {
+        if (!s.isOpen()) {
+            return;
+        }
+        outboxes.computeIfAbsent(s, _ -> new SessionOutbox(s, outboxCapacity, overflowPolicy, metrics)).send(message);
+        if (!s.isOpen()) {
+            // the session closed meanwhile, and remove may have run before the outbox was added
+            remove(s);
+        }
+    }
+
+    /**
+     * Discards anything still waiting to be sent to a session that has closed
+     */
+    public void remove(Session s) {
+        SessionOutbox outbox = outboxes.remove(s);
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    /**
+     * @return the number of messages waiting to be sent, across every session
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (SessionOutbox outbox : outboxes.values()) {
+            depth += outbox.depth();
+        }
+        return depth;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * A message encoded once, ready to be sent to many sessions
+     */
+    public record Encoded(ServerMessage.ServerMessageType type, String text) {
+    }
+
+    /**
+     * Counters across every session's outbox
+     */
+    public static class Metrics {
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final LongAdder queuedMessages = new LongAdder();
+        private final LongAdder discardedMessages = new LongAdder();
+        private final LongAdder disconnects = new LongAdder();
+        private final LongAdder failedWrites = new LongAdder();
+
+        void queued(int depth) {
+            queuedMessages.increment();
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        void discarded(int count) {
+            discardedMessages.add(count);
+        }
+
+        void disconnected(int discarded) {
+            disconnects.increment();
+            discardedMessages.add(discarded);
+        }
+
+        void writeFailed() {
+            failedWrites.increment();
+        }
+
+        /**
+         * @return the deepest any outbox has been
+         */
+        public int getMaxQueueDepth() {
+            return maxQueueDepth.get();
+        }
+
+        public long getQueuedMessages() {
+            return queuedMessages.sum();
+        }
+
+        /**
+         * @return messages that were never sent because they went stale or their client was disconnected
+         */
+        public long getDiscardedMessages() {
+            return discardedMessages.sum();
+        }
+
+        /**
+         * @return clients disconnected because their outbox overflowed
+         */
+        public long getDisconnects() {
+            return disconnects.sum();
+        }
+
+        /**
+         * @return writes that failed, each closing its client's session
+         */
+        public long getFailedWrites() {
+            return failedWrites.sum();
         }
     }
 }
@@ -1,12 +1,15 @@
 package service;
 
 import dataaccess.AuthDao;
+import dataaccess.ConcurrentUpdateException;
 import dataaccess.DataAccessException;
 import dataaccess.GameDao;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import model.request.CreateRequest;
 import model.request.JoinRequest;
+import model.request.ListGamesRequest;
 import model.result.CreateResult;
 import model.result.ListGamesResult;
 
@@ -16,6 +19,8 @@ import static chess.ChessGame.TeamColor.BLACK;
 import static chess.ChessGame.TeamColor.WHITE;
 
 public class GameService {
+    private static final int MAX_JOIN_ATTEMPTS = 3;
+
     private final GameDao gameDao;
     private final AuthDao authDao;
 
@@ -24,11 +29,25 @@ public class GameService {
         this.authDao = authDao;
     }
 
-    public ListGamesResult listGames(String authToken) throws ServiceException {
+    /**
+     * Lists one page of games. The cursor is the ID of the last game on the previous page.
+     */
+    public ListGamesResult listGames(String authToken, ListGamesRequest request) throws ServiceException {
+        int afterGameID;
+        try {
+            afterGameID = request.cursor() == null ? 0 : Integer.parseInt(request.cursor());
+        } catch (NumberFormatException ex) {
+            throw new ServiceException(ServiceException.ServiceExceptionType.BAD_REQUEST);
+        }
         try {
             validateAuthToken(authToken);
-            List<GameData> games = gameDao.getGames();
-            return new ListGamesResult(games);
+            // ask for one more game than fits on the page to find out whether there is another page
+            List<GameSummary> games = gameDao.listGames(request.status(), afterGameID, request.limit() + 1);
+            if (games.size() <= request.limit()) {
+                return new ListGamesResult(games, null);
+            }
+            games = games.subList(0, request.limit());
+            return new ListGamesResult(games, String.valueOf(games.getLast().gameID()));
         } catch (DataAccessException ex) {
             throw new ServiceException(ServiceException.ServiceExceptionType.SERVER_ERROR);
         }
@@ -50,21 +69,41 @@ public class GameService {
             if (auth == null) {
                 throw new ServiceException(ServiceException.ServiceExceptionType.UNAUTHORIZED);
             }
-            GameData game = gameDao.getGame(request.gameID());
-            if (game == null) {
-                throw new ServiceException(ServiceException.ServiceExceptionType.BAD_REQUEST);
-            }
-            if ((request.playerColor() == WHITE && game.whiteUsername() != null) ||
-                    (request.playerColor() == BLACK && game.blackUsername() != null)) {
-                throw new ServiceException(ServiceException.ServiceExceptionType.ALREADY_TAKEN);
+            for (int attempt = 1; attempt <= MAX_JOIN_ATTEMPTS; attempt++) {
+                GameData game = gameWithEmptySeat(request);
+                try {
+                    gameDao.updateGame(request.playerColor() == WHITE
+                            ? game.withWhiteUsername(auth.username())
+                            : game.withBlackUsername(auth.username()));
+                    return;
+                } catch (ConcurrentUpdateException ex) {
+                    // the game changed since it was read; read it again to see whether the seat is still empty
+                }
             }
-            GameData newGame = getUpdateGameData(request, game, auth); // sets updated username (see below)
-            gameDao.updateGame(newGame);
+            // the game kept changing, e.g. because moves were being made, but the seat may still be empty
+            gameWithEmptySeat(request);
+            throw new ServiceException(ServiceException.ServiceExceptionType.CONFLICT);
         } catch (DataAccessException ex) {
             throw new ServiceException(ServiceException.ServiceExceptionType.SERVER_ERROR);
         }
     }
 
+    /**
+     * @return the game to join
+     * @throws ServiceException if the game does not exist or the requested seat is taken
+     */
+    private GameData gameWithEmptySeat(JoinRequest request) throws ServiceException, DataAccessException {
+        GameData game = gameDao.getGame(request.gameID());
+        if (game == null) {
+            throw new ServiceException(ServiceException.ServiceExceptionType.BAD_REQUEST);
+        }
+        if ((request.playerColor() == WHITE && game.whiteUsername() != null) ||
+                (request.playerColor() == BLACK && game.blackUsername() != null)) {
+            throw new ServiceException(ServiceException.ServiceExceptionType.ALREADY_TAKEN);
+        }
+        return game;
+    }
+
     private void validateAuthToken(String authToken) throws ServiceException {
         try {
             if (authDao.getAuth(authToken) == null) {
@@ -74,26 +113,4 @@ public class GameService {
             throw new ServiceException(ServiceException.ServiceExceptionType.SERVER_ERROR);
         }
     }
-
-    private GameData getUpdateGameData(JoinRequest request, GameData game, AuthData auth) {
-        GameData newGame;
-        if (request.playerColor() == WHITE) {
-            newGame = new GameData(
-                    game.gameID(),
-                    auth.username(),
-                    game.blackUsername(),
-                    game.gameName(),
-                    game.game()
-            );
-        } else {
-            newGame = new GameData(
-                    game.gameID(),
-                    game.whiteUsername(),
-                    auth.username(),
-                    game.gameName(),
-                    game.game()
-            );
-        }
-        return newGame;
-    }
 }
@@ -5,6 +5,8 @@ public class ServiceException extends Exception {
         ALREADY_TAKEN,
         BAD_REQUEST,
         UNAUTHORIZED,
+        // the request could not be completed because the data kept changing, and can be retried
+        CONFLICT,
         SERVER_ERROR
     }
 
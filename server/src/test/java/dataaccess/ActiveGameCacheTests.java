@@ -0,0 +1,86 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.MoveNotation;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ActiveGameCacheTests {
+    private MemoryGameDao stored;
+    private ActiveGameCache cache;
+    private int gameID;
+
+    @BeforeEach
+    public void setup() throws DataAccessException {
+        stored = new MemoryGameDao();
+        cache = new ActiveGameCache(stored);
+        gameID = stored.createGame("game");
+    }
+
+    @Test
+    @DisplayName("Pinned Game Is Updated In Place")
+    public void updatePinned() throws DataAccessException {
+        GameData joined = cache.pin(gameID).withWhiteUsername("white");
+        cache.updateGame(joined);
+
+        Assertions.assertEquals(joined, stored.getGame(gameID), "Update was not stored");
+        Assertions.assertSame(joined, cache.getGame(gameID), "Cached game was not replaced");
+    }
+
+    @Test
+    @DisplayName("Unpinned Game Is Evicted")
+    public void unpinEvicts() throws DataAccessException {
+        cache.pin(gameID);
+        cache.pin(gameID);
+        GameData changed = stored.getGame(gameID).withWhiteUsername("white");
+        stored.updateGame(changed);
+
+        cache.unpin(gameID);
+        Assertions.assertNull(cache.getGame(gameID).whiteUsername(), "Game was evicted while still pinned");
+        cache.unpin(gameID);
+        Assertions.assertEquals(changed, cache.getGame(gameID), "Game was not evicted");
+    }
+
+    @Test
+    @DisplayName("Rejected Update Reloads The Cached Game")
+    public void conflictReloads() throws Exception {
+        GameData cached = cache.pin(gameID);
+        // the game is changed without going through the cache, e.g. by another server
+        GameData changed = stored.getGame(gameID).withBlackUsername("black");
+        stored.updateGame(changed);
+
+        Assertions.assertThrows(ConcurrentUpdateException.class,
+                () -> cache.updateGame(cached.withWhiteUsername("white")));
+        Assertions.assertEquals(changed, cache.getGame(gameID), "Cached game was not reloaded");
+
+        GameData retried = cache.getGame(gameID).withWhiteUsername("white");
+        cache.updateGame(retried);
+        Assertions.assertEquals("black", stored.getGame(gameID).blackUsername(), "Concurrent update was lost");
+        Assertions.assertEquals("white", stored.getGame(gameID).whiteUsername(), "Retry was not stored");
+    }
+
+    @Test
+    @DisplayName("Rejected Move Reloads The Cached Game")
+    public void conflictingMoveReloads() throws Exception {
+        GameData cached = cache.pin(gameID);
+        GameData changed = stored.getGame(gameID).withWhiteUsername("white");
+        stored.updateGame(changed);
+
+        ChessMove move = MoveNotation.parse("e2e4");
+        ChessGame moved = cached.game().copy();
+        moved.makeMove(move);
+        Assertions.assertThrows(ConcurrentUpdateException.class,
+                () -> cache.recordMove(cached.withGame(moved), move));
+        Assertions.assertEquals(changed.version(), cache.getGame(gameID).version(), "Cached game was not reloaded");
+
+        GameData current = cache.getGame(gameID);
+        ChessGame retried = current.game().copy();
+        retried.makeMove(move);
+        cache.recordMove(current.withGame(retried), move);
+        Assertions.assertEquals(1, stored.getGame(gameID).game().getPly(), "Retried move was not stored");
+    }
+}
@@ -0,0 +1,130 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CachingAuthDaoTests {
+    private CountingAuthDao stored;
+
+    @BeforeEach
+    public void setup() throws DataAccessException {
+        stored = new CountingAuthDao();
+        stored.createAuth(new AuthData("token1", "user1"));
+        stored.createAuth(new AuthData("token2", "user2"));
+        stored.createAuth(new AuthData("token3", "user3"));
+    }
+
+    @Test
+    @DisplayName("Repeated Lookups Are Cached")
+    public void cacheHit() throws DataAccessException {
+        CachingAuthDao dao = new CachingAuthDao(stored, 10, Duration.ofMinutes(5));
+
+        Assertions.assertEquals("user1", dao.getAuth("token1").username());
+        Assertions.assertEquals("user1", dao.getAuth("token1").username());
+        Assertions.assertEquals(1, stored.lookups, "Cached token was looked up again");
+    }
+
+    @Test
+    @DisplayName("Unknown Tokens Are Not Cached")
+    public void unknownNotCached() throws DataAccessException {
+        CachingAuthDao dao = new CachingAuthDao(stored, 10, Duration.ofMinutes(5));
+
+        Assertions.assertNull(dao.getAuth("unknown"));
+        stored.createAuth(new AuthData("unknown", "user4"));
+        Assertions.assertEquals("user4", dao.getAuth("unknown").username(), "Missing token was cached");
+    }
+
+    @Test
+    @DisplayName("Expired Tokens Are Looked Up Again")
+    public void timeToLive() throws Exception {
+        CachingAuthDao dao = new CachingAuthDao(stored, 10, Duration.ofMillis(1));
+
+        dao.getAuth("token1");
+        Thread.sleep(5);
+        stored.deleteAuth("token1");
+        Assertions.assertNull(dao.getAuth("token1"), "Expired token was trusted");
+        Assertions.assertEquals(2, stored.lookups);
+    }
+
+    @Test
+    @DisplayName("Least Recently Used Token Is Evicted")
+    public void eviction() throws DataAccessException {
+        CachingAuthDao dao = new CachingAuthDao(stored, 2, Duration.ofMinutes(5));
+
+        dao.getAuth("token1");
+        dao.getAuth("token2");
+        dao.getAuth("token1");
+        dao.getAuth("token3");
+        stored.lookups = 0;
+
+        dao.getAuth("token1");
+        dao.getAuth("token3");
+        Assertions.assertEquals(0, stored.lookups, "Recently used tokens were evicted");
+        dao.getAuth("token2");
+        Assertions.assertEquals(1, stored.lookups, "Least recently used token was not evicted");
+    }
+
+    @Test
+    @DisplayName("Deleted Tokens Are Forgotten")
+    public void deleteInvalidates() throws DataAccessException {
+        CachingAuthDao dao = new CachingAuthDao(stored, 10, Duration.ofMinutes(5));
+
+        dao.getAuth("token1");
+        dao.deleteAuth("token1");
+        Assertions.assertNull(dao.getAuth("token1"), "Deleted token was still cached");
+    }
+
+    @Test
+    @DisplayName("Token Deleted While Loading Is Not Cached")
+    public void deleteWhileLoading() throws Exception {
+        CachingAuthDao dao = new CachingAuthDao(stored, 10, Duration.ofMinutes(5));
+        stored.loaded = new CountDownLatch(1);
+        stored.resume = new CountDownLatch(1);
+
+        // the lookup reads the token, then stalls until the token has been deleted
+        CompletableFuture<AuthData> lookup = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dao.getAuth("token1");
+            } catch (DataAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        Assertions.assertTrue(stored.loaded.await(5, TimeUnit.SECONDS));
+        stored.loaded = null;
+        dao.deleteAuth("token1");
+        stored.resume.countDown();
+
+        Assertions.assertNotNull(lookup.get(5, TimeUnit.SECONDS));
+        Assertions.assertNull(dao.getAuth("token1"), "Deleted token was cached by a concurrent lookup");
+    }
+
+    private static class CountingAuthDao extends MemoryAuthDao {
+        private volatile int lookups;
+        private volatile CountDownLatch loaded;
+        private volatile CountDownLatch resume;
+
+        @Override
+        public AuthData getAuth(String authToken) throws DataAccessException {
+            lookups++;
+            AuthData auth = super.getAuth(authToken);
+            CountDownLatch loaded = this.loaded;
+            if (loaded != null) {
+                loaded.countDown();
+                try {
+                    resume.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return auth;
+        }
+    }
+}
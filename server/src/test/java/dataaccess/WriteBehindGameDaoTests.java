@@ -0,0 +1,260 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.MoveNotation;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class WriteBehindGameDaoTests {
+    // long enough that nothing is flushed in the background while a test runs
+    private static final long NEVER = 3_600_000;
+
+    @TempDir
+    Path dir;
+    private Path journalPath;
+    private FlakyGameDao stored;
+    private int gameID;
+
+    @BeforeEach
+    public void setup() throws DataAccessException {
+        journalPath = dir.resolve("games.journal");
+        stored = new FlakyGameDao();
+        gameID = stored.createGame("game");
+    }
+
+    @Test
+    @DisplayName("Pending Updates Are Read Before They Are Flushed")
+    public void readPending() throws Exception {
+        WriteBehindGameDao dao = new WriteBehindGameDao(stored, journalPath, NEVER);
+        GameData joined = dao.getGame(gameID).withWhiteUsername("white");
+        dao.updateGame(joined);
+
+        Assertions.assertEquals(joined, dao.getGame(gameID), "Pending update was not read");
+        Assertions.assertNull(stored.getGame(gameID).whiteUsername(), "Update was written through");
+
+        dao.close();
+        Assertions.assertEquals(joined, stored.getGame(gameID), "Update was not flushed");
+        Assertions.assertEquals(0, Files.size(journalPath), "Journal was not emptied after the flush");
+    }
+
+    @Test
+    @DisplayName("Replay Journal After A Crash")
+    public void replayAfterCrash() throws Exception {
+        WriteBehindGameDao crashed = new WriteBehindGameDao(stored, journalPath, NEVER);
+        GameData game = crashed.getGame(gameID).withWhiteUsername("white");
+        crashed.updateGame(game);
+        game = move(crashed, game, "e2e4");
+        game = move(crashed, game, "e7e5");
+        // the server dies without flushing, leaving a partly written entry at the end
+        Files.writeString(journalPath, "{\"gameID\":" + gameID + ",\"white", StandardOpenOption.APPEND);
+
+        WriteBehindGameDao restarted = new WriteBehindGameDao(stored, journalPath, NEVER);
+        Assertions.assertEquals(game, stored.getGame(gameID), "Journaled updates were not replayed");
+        Assertions.assertEquals(3, stored.getGame(gameID).version(), "Updates were not replayed in order");
+        Assertions.assertEquals(0, Files.size(journalPath), "Journal was not emptied after the replay");
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("Skip Updates Already Stored Before A Crash")
+    public void skipStoredOnReplay() throws Exception {
+        WriteBehindGameDao dao = new WriteBehindGameDao(stored, journalPath, NEVER);
+        GameData game = move(dao, dao.getGame(gameID), "d2d4");
+        game = move(dao, game, "d7d5");
+        byte[] journaled = Files.readAllBytes(journalPath);
+        dao.close();
+        // the server died after flushing but before the journal was emptied
+        Files.write(journalPath, journaled);
+
+        WriteBehindGameDao restarted = new WriteBehindGameDao(stored, journalPath, NEVER);
+        Assertions.assertEquals(game, stored.getGame(gameID), "Stored game changed on replay");
+        Assertions.assertEquals(2, stored.getGame(gameID).version(), "Stored updates were applied twice");
+        Assertions.assertEquals(0, Files.size(journalPath), "Journal was not emptied after the replay");
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("Reject Updates Made From An Old Version")
+    public void rejectStaleUpdate() throws Exception {
+        WriteBehindGameDao dao = new WriteBehindGameDao(stored, journalPath, NEVER);
+        GameData original = dao.getGame(gameID);
+        dao.updateGame(original.withWhiteUsername("white"));
+
+        Assertions.assertThrows(ConcurrentUpdateException.class,
+                () -> dao.updateGame(original.withBlackUsername("black")));
+        dao.close();
+        Assertions.assertNull(stored.getGame(gameID).blackUsername(), "Stale update was stored");
+    }
+
+    @Test
+    @DisplayName("Quarantine A Conflicting Game And Write The Rest")
+    public void quarantineConflict() throws Exception {
+        WriteBehindGameDao dao = new WriteBehindGameDao(stored, journalPath, NEVER);
+        int otherID = stored.createGame("other");
+        dao.updateGame(dao.getGame(gameID).withWhiteUsername("white"));
+        GameData other = dao.getGame(otherID).withBlackUsername("black");
+        dao.updateGame(other);
+        // someone else stores a different version 1 before the journal is flushed
+        GameData elsewhere = stored.getGame(gameID).withWhiteUsername("someone else");
+        stored.updateGame(elsewhere);
+
+        dao.close();
+        Assertions.assertEquals(other, stored.getGame(otherID), "Other game was held up by the conflict");
+        Assertions.assertEquals(Set.of(gameID), dao.getQuarantinedGames());
+        Assertions.assertEquals(elsewhere, dao.getGame(gameID), "Quarantined game was not read from the database");
+        Assertions.assertTrue(Files.readString(journalPath).contains("\"whiteUsername\":\"white\""),
+                "Quarantined update was dropped from the journal");
+    }
+
+    @Test
+    @DisplayName("Quarantine A Game That Keeps Failing")
+    public void quarantineRepeatedFailures() throws Exception {
+        stored.rejected.add(gameID);
+        int otherID = stored.createGame("other");
+        WriteBehindGameDao dao = new WriteBehindGameDao(stored, journalPath, NEVER);
+        dao.updateGame(dao.getGame(gameID).withWhiteUsername("white"));
+
+        GameData other = dao.getGame(otherID);
+        for (int flush = 1; flush <= WriteBehindGameDao.MAX_REJECTIONS; flush++) {
+            Assertions.assertEquals(Set.of(), dao.getQuarantinedGames(), "Game was quarantined too soon");
+            other = other.withBlackUsername("black " + flush);
+            dao.updateGame(other);
+            dao.flush();
+            Assertions.assertEquals(other, stored.getGame(otherID), "Other game was held up by the failing one");
+        }
+        Assertions.assertEquals(Set.of(gameID), dao.getQuarantinedGames());
+        Assertions.assertEquals(0, dao.getPendingUpdates());
+        dao.close();
+    }
+
+    @Test
+    @DisplayName("Keep Every Update While The Database Is Down")
+    public void databaseDown() throws Exception {
+        WriteBehindGameDao dao = new WriteBehindGameDao(stored, journalPath, NEVER);
+        GameData joined = dao.getGame(gameID).withWhiteUsername("white");
+        dao.updateGame(joined);
+        stored.rejected.add(gameID);
+
+        for (int flush = 0; flush <= WriteBehindGameDao.MAX_REJECTIONS; flush++) {
+            Assertions.assertThrows(DataAccessException.class, dao::flush);
+        }
+        Assertions.assertEquals(Set.of(), dao.getQuarantinedGames(), "Game was quarantined during an outage");
+        stored.rejected.clear();
+        dao.close();
+        Assertions.assertEquals(joined, stored.getGame(gameID));
+    }
+
+    @Test
+    @DisplayName("Write Updates In Limited Batches")
+    public void batchSize() throws Exception {
+        WriteBehindGameDao dao = new WriteBehindGameDao(stored, journalPath, NEVER);
+        GameData game = dao.getGame(gameID);
+        for (int i = 0; i <= WriteBehindGameDao.MAX_BATCH_SIZE; i++) {
+            game = game.withWhiteUsername("white " + i);
+            dao.updateGame(game);
+        }
+
+        dao.close();
+        Assertions.assertEquals(List.of(WriteBehindGameDao.MAX_BATCH_SIZE, 1), stored.batchSizes);
+        Assertions.assertEquals(game, stored.getGame(gameID));
+    }
+
+    @Test
+    @DisplayName("Compact The Journal While Updates Stay Pending")
+    public void compaction() throws Exception {
+        WriteBehindGameDao dao = new WriteBehindGameDao(stored, journalPath, NEVER);
+        int otherID = stored.createGame("other");
+        // a quarantined update keeps the journal from ever being emptied
+        dao.updateGame(dao.getGame(gameID).withWhiteUsername("white"));
+        stored.updateGame(stored.getGame(gameID).withWhiteUsername("someone else"));
+        dao.flush();
+
+        GameData other = dao.getGame(otherID);
+        for (int i = 0; i < 1000; i++) {
+            other = other.withBlackUsername("black " + i);
+            dao.updateGame(other);
+        }
+        dao.flush();
+        Assertions.assertEquals(1, Files.readAllLines(journalPath).size(), "Written updates were kept in the journal");
+
+        // the journal is still appended to after it was rewritten
+        dao.updateGame(other.withWhiteUsername("white"));
+        Assertions.assertEquals(2, Files.readAllLines(journalPath).size());
+        dao.close();
+    }
+
+    @Test
+    @DisplayName("Refuse To Start With A Corrupt Journal Entry")
+    public void corruptEntry() throws Exception {
+        WriteBehindGameDao crashed = new WriteBehindGameDao(stored, journalPath, NEVER);
+        GameData game = crashed.getGame(gameID).withWhiteUsername("white");
+        crashed.updateGame(game);
+        List<String> lines = new ArrayList<>(Files.readAllLines(journalPath));
+        crashed.updateGame(game.withBlackUsername("black"));
+        lines.add("not a journal entry");
+        lines.add(Files.readAllLines(journalPath).get(1));
+        Files.write(journalPath, lines);
+
+        Assertions.assertThrows(DataAccessException.class, () -> new WriteBehindGameDao(stored, journalPath, NEVER));
+        Assertions.assertEquals(0, stored.getGame(gameID).version(), "Updates after a corrupt entry were stored");
+    }
+
+    @Test
+    @DisplayName("Cut Off An Incomplete Last Entry Before Appending")
+    public void cutOffIncompleteEntry() throws Exception {
+        Files.writeString(journalPath, "{\"gameID\":" + gameID + ",\"white");
+        WriteBehindGameDao restarted = new WriteBehindGameDao(stored, journalPath, NEVER);
+        GameData joined = restarted.getGame(gameID).withWhiteUsername("white");
+        restarted.updateGame(joined);
+
+        // the server crashes again before flushing
+        WriteBehindGameDao recovered = new WriteBehindGameDao(stored, journalPath, NEVER);
+        Assertions.assertEquals(joined, stored.getGame(gameID), "Entry after the cut off one was not replayed");
+        recovered.close();
+    }
+
+    private GameData move(WriteBehindGameDao dao, GameData game, String notation)
+            throws InvalidMoveException, DataAccessException {
+        ChessMove move = MoveNotation.parse(notation);
+        ChessGame updated = game.game().copy();
+        updated.makeMove(move);
+        GameData next = game.withGame(updated);
+        dao.recordMove(next, move);
+        return next;
+    }
+
+    /**
+     * Fails every write that includes a rejected game, and records the size of each batch written
+     */
+    private static class FlakyGameDao extends MemoryGameDao {
+        private final Set<Integer> rejected = new HashSet<>();
+        private final List<Integer> batchSizes = new ArrayList<>();
+
+        @Override
+        public void applyUpdates(List<GameUpdate> updates) throws DataAccessException {
+            for (GameUpdate update : updates) {
+                if (rejected.contains(update.gameData().gameID())) {
+                    throw new DataAccessException("game " + update.gameData().gameID() + " cannot be written");
+                }
+            }
+            batchSizes.add(updates.size());
+            super.applyUpdates(updates);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A websocket session whose writes only complete when a test says so
+ */
+class FakeSession {
+    final List<String> sent = new ArrayList<>();
+    final Session session;
+    Integer closeStatus;
+    private WriteCallback pendingWrite;
+
+    FakeSession() {
+        RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RemoteEndpoint.class}, (_, method, args) -> {
+                    if (method.getName().equals("sendString") && args.length == 2) {
+                        if (pendingWrite != null) {
+                            throw new IllegalStateException("a write is already in progress");
+                        }
+                        sent.add((String) args[0]);
+                        pendingWrite = (WriteCallback) args[1];
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        session = (Session) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Session.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "getRemote" -> remote;
+                    case "isOpen" -> closeStatus == null;
+                    case "close" -> {
+                        closeStatus = (Integer) args[0];
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Completes the write in progress, which starts the next one if more messages are waiting
+     */
+    void finishWrite() {
+        WriteCallback callback = pendingWrite;
+        pendingWrite = null;
+        callback.writeSuccess();
+    }
+
+    void failWrite() {
+        WriteCallback callback = pendingWrite;
+        pendingWrite = null;
+        callback.writeFailed(new RuntimeException("connection reset"));
+    }
+
+    void finishAllWrites() {
+        while (pendingWrite != null) {
+            finishWrite();
+        }
+    }
+}
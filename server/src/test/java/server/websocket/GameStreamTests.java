@@ -0,0 +1,122 @@
+package server.websocket;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.messages.ServerMessage.ServerMessageType;
+
+import java.util.List;
+
+public class GameStreamTests {
+
+    @Test
+    @DisplayName("Sequence Numbers Increase By One")
+    public void sequenceNumbers() {
+        GameStream stream = new GameStream(4);
+        long first = stream.nextSequence();
+
+        Assertions.assertEquals(first, stream.lastSequence());
+        Assertions.assertEquals(first + 1, stream.nextSequence());
+        Assertions.assertEquals(first + 1, stream.lastSequence());
+    }
+
+    @Test
+    @DisplayName("Later Streams Start After Earlier Ones")
+    public void laterStreamsAreHigher() {
+        long now = System.currentTimeMillis();
+        GameStream earlier = new GameStream(4, now);
+        for (int i = 0; i < 100_000; i++) {
+            earlier.nextSequence();
+        }
+
+        Assertions.assertTrue(new GameStream(4, now + 1000).nextSequence() > earlier.lastSequence(),
+                "A recreated stream reused sequence numbers");
+    }
+
+    @Test
+    @DisplayName("Sequence Numbers Are Exact In JavaScript")
+    public void safeIntegers() {
+        long maxSafeInteger = (1L << 53) - 1;
+        // 2200-01-01
+        GameStream stream = new GameStream(4, 7_258_118_400_000L);
+
+        Assertions.assertTrue(stream.nextSequence() < maxSafeInteger, "Sequence number would lose precision");
+    }
+
+    @Test
+    @DisplayName("Replay Sends Only Missed Messages")
+    public void replayMissed() {
+        GameStream stream = new GameStream(4);
+        long start = stream.lastSequence();
+        record(stream, "1", null);
+        record(stream, "2", null);
+        record(stream, "3", null);
+
+        Assertions.assertEquals(List.of("2", "3"), texts(stream.since(start + 1, false, "user")));
+        Assertions.assertEquals(List.of(), stream.since(start + 3, false, "user"));
+        Assertions.assertNull(stream.since(start + 4, false, "user"), "Replayed from a number never handed out");
+    }
+
+    @Test
+    @DisplayName("Replay Fails Once Missed Messages Are Forgotten")
+    public void retentionWindow() {
+        GameStream stream = new GameStream(2);
+        long start = stream.lastSequence();
+        record(stream, "1", null);
+        record(stream, "2", null);
+        record(stream, "3", null);
+
+        Assertions.assertNull(stream.since(start, false, "user"), "Replayed past a forgotten message");
+        Assertions.assertEquals(List.of("2", "3"), texts(stream.since(start + 1, false, "user")));
+    }
+
+    @Test
+    @DisplayName("Replay Picks The Form The Client Asked For")
+    public void replayDeltas() {
+        GameStream stream = new GameStream(4);
+        long start = stream.lastSequence();
+        long sequence = stream.nextSequence();
+        stream.record(sequence, encoded(ServerMessageType.LOAD_GAME, "board"),
+                encoded(ServerMessageType.MOVE, "move"), null);
+
+        Assertions.assertEquals(List.of("board"), texts(stream.since(start, false, "user")));
+        Assertions.assertEquals(List.of("move"), texts(stream.since(start, true, "user")));
+    }
+
+    @Test
+    @DisplayName("Replay Skips Messages Not Sent To The User")
+    public void replaySkipsExcluded() {
+        GameStream stream = new GameStream(4);
+        long start = stream.lastSequence();
+        record(stream, "user joined", "user");
+        record(stream, "other joined", "other");
+
+        Assertions.assertEquals(List.of("other joined"), texts(stream.since(start, false, "user")));
+        Assertions.assertEquals(List.of("user joined"), texts(stream.since(start, false, "other")));
+    }
+
+    @Test
+    @DisplayName("Stream Is Idle Without Messages")
+    public void idle() throws InterruptedException {
+        GameStream stream = new GameStream(4);
+        long created = System.currentTimeMillis();
+        Thread.sleep(2);
+
+        Assertions.assertTrue(stream.idleSince(System.currentTimeMillis()));
+        stream.nextSequence();
+        Assertions.assertFalse(stream.idleSince(created), "A new message did not count as activity");
+    }
+
+    private static void record(GameStream stream, String text, String excludedUsername) {
+        WebsocketMessenger.Encoded msg = encoded(ServerMessageType.NOTIFICATION, text);
+        stream.record(stream.nextSequence(), msg, msg, excludedUsername);
+    }
+
+    private static WebsocketMessenger.Encoded encoded(ServerMessageType type, String text) {
+        return new WebsocketMessenger.Encoded(type, text);
+    }
+
+    private static List<String> texts(List<WebsocketMessenger.Encoded> messages) {
+        return messages.stream().map(WebsocketMessenger.Encoded::text).toList();
+    }
+}
@@ -0,0 +1,99 @@
+package server.websocket;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SerialExecutorTests {
+
+    @Test
+    @DisplayName("Tasks Run In Submission Order")
+    public void submissionOrder() throws InterruptedException {
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        SerialExecutor executor = new SerialExecutor(threads);
+        List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; i++) {
+            int task = i;
+            executor.execute(() -> {
+                ran.add(task);
+                done.countDown();
+            });
+        }
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i, ran.get(i), "Tasks ran out of order");
+        }
+        threads.shutdown();
+    }
+
+    @Test
+    @DisplayName("Tasks Never Run At The Same Time")
+    public void oneAtATime() throws InterruptedException {
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        SerialExecutor executor = new SerialExecutor(threads);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(800);
+        // submit from several threads at once
+        for (int t = 0; t < 8; t++) {
+            threads.execute(() -> {
+                for (int i = 0; i < 100; i++) {
+                    executor.execute(() -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        Thread.onSpinWait();
+                        running.decrementAndGet();
+                        done.countDown();
+                    });
+                }
+            });
+        }
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS), "Some tasks never ran");
+        Assertions.assertEquals(1, maxRunning.get(), "Tasks ran concurrently");
+        threads.shutdown();
+    }
+
+    @Test
+    @DisplayName("Task Throwing An Error Does Not Stop Later Tasks")
+    public void taskThrowsError() throws InterruptedException {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        SerialExecutor executor = new SerialExecutor(threads);
+        CountDownLatch done = new CountDownLatch(2);
+        executor.execute(() -> {
+            throw new StackOverflowError();
+        });
+        executor.execute(done::countDown);
+        Thread.sleep(50);
+        // the executor must still accept tasks after the one that threw has finished
+        executor.execute(done::countDown);
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS), "Executor stopped after a task threw an Error");
+        threads.shutdown();
+    }
+
+    @Test
+    @DisplayName("Failing Task Does Not Stop Later Tasks")
+    public void failingTask() throws InterruptedException {
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        SerialExecutor executor = new SerialExecutor(threads);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(() -> {
+            throw new IllegalStateException("task failed");
+        });
+        executor.execute(done::countDown);
+
+        Assertions.assertTrue(done.await(5, TimeUnit.SECONDS), "Task after a failure never ran");
+        threads.shutdown();
+    }
+}
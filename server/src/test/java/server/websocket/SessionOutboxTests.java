@@ -0,0 +1,118 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.messages.ServerMessage.ServerMessageType;
+
+import java.util.List;
+
+public class SessionOutboxTests {
+    private FakeSession client;
+    private WebsocketMessenger.Metrics metrics;
+
+    @BeforeEach
+    public void setup() {
+        client = new FakeSession();
+        metrics = new WebsocketMessenger.Metrics();
+    }
+
+    @Test
+    @DisplayName("Messages Are Written One At A Time In Order")
+    public void inOrder() {
+        SessionOutbox outbox = new SessionOutbox(client.session, 8, OverflowPolicy.DISCONNECT, metrics);
+        outbox.send(notification("1"));
+        outbox.send(notification("2"));
+        outbox.send(notification("3"));
+
+        Assertions.assertEquals(List.of("1"), client.sent, "Next message was written before the last one finished");
+        Assertions.assertEquals(2, outbox.depth());
+        client.finishAllWrites();
+        Assertions.assertEquals(List.of("1", "2", "3"), client.sent);
+        Assertions.assertEquals(0, outbox.depth());
+    }
+
+    @Test
+    @DisplayName("Full Outbox Drops All But The Newest Queued Game")
+    public void dropStaleGames() {
+        SessionOutbox outbox = new SessionOutbox(client.session, 3, OverflowPolicy.DROP_STALE_GAMES, metrics);
+        outbox.send(notification("note 1"));
+        outbox.send(game("game 1"));
+        outbox.send(game("game 2"));
+        outbox.send(notification("note 2"));
+        outbox.send(notification("note 3"));
+
+        client.finishAllWrites();
+        Assertions.assertEquals(List.of("note 1", "game 2", "note 2", "note 3"), client.sent);
+        Assertions.assertEquals(1, metrics.getDiscardedMessages());
+        Assertions.assertNull(client.closeStatus, "Client was disconnected");
+    }
+
+    @Test
+    @DisplayName("Full Outbox With Nothing Stale Disconnects")
+    public void dropStaleGamesDisconnects() {
+        SessionOutbox outbox = new SessionOutbox(client.session, 2, OverflowPolicy.DROP_STALE_GAMES, metrics);
+        outbox.send(notification("note 1"));
+        outbox.send(game("game 1"));
+        outbox.send(notification("note 2"));
+        outbox.send(notification("note 3"));
+
+        Assertions.assertEquals(StatusCode.POLICY_VIOLATION, client.closeStatus);
+        Assertions.assertEquals(1, metrics.getDisconnects());
+        client.finishAllWrites();
+        Assertions.assertEquals(List.of("note 1"), client.sent, "Messages were sent after disconnecting");
+    }
+
+    @Test
+    @DisplayName("Coalesce Keeps Only The Newest Queued Game")
+    public void coalesce() {
+        SessionOutbox outbox = new SessionOutbox(client.session, 8, OverflowPolicy.COALESCE, metrics);
+        outbox.send(game("game 1"));
+        outbox.send(game("game 2"));
+        outbox.send(notification("note"));
+        outbox.send(game("game 3"));
+
+        Assertions.assertEquals(2, outbox.depth());
+        client.finishAllWrites();
+        Assertions.assertEquals(List.of("game 1", "note", "game 3"), client.sent);
+    }
+
+    @Test
+    @DisplayName("Disconnect As Soon As The Outbox Is Full")
+    public void disconnect() {
+        SessionOutbox outbox = new SessionOutbox(client.session, 2, OverflowPolicy.DISCONNECT, metrics);
+        outbox.send(notification("1"));
+        outbox.send(game("2"));
+        outbox.send(game("3"));
+        Assertions.assertNull(client.closeStatus);
+
+        outbox.send(game("4"));
+        Assertions.assertEquals(StatusCode.POLICY_VIOLATION, client.closeStatus);
+        Assertions.assertEquals(2, metrics.getDiscardedMessages());
+        Assertions.assertEquals(0, outbox.depth());
+    }
+
+    @Test
+    @DisplayName("Failed Write Closes The Session")
+    public void writeFailed() {
+        SessionOutbox outbox = new SessionOutbox(client.session, 8, OverflowPolicy.DISCONNECT, metrics);
+        outbox.send(notification("1"));
+        outbox.send(notification("2"));
+
+        client.failWrite();
+        Assertions.assertEquals(StatusCode.SERVER_ERROR, client.closeStatus);
+        Assertions.assertEquals(1, metrics.getFailedWrites());
+        outbox.send(notification("3"));
+        Assertions.assertEquals(List.of("1"), client.sent, "Messages were sent after a failed write");
+    }
+
+    private static WebsocketMessenger.Encoded notification(String text) {
+        return new WebsocketMessenger.Encoded(ServerMessageType.NOTIFICATION, text);
+    }
+
+    private static WebsocketMessenger.Encoded game(String text) {
+        return new WebsocketMessenger.Encoded(ServerMessageType.LOAD_GAME, text);
+    }
+}
@@ -0,0 +1,81 @@
+package service;
+
+import dataaccess.ConcurrentUpdateException;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryAuthDao;
+import dataaccess.MemoryGameDao;
+import model.AuthData;
+import model.GameData;
+import model.request.JoinRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static chess.ChessGame.TeamColor.WHITE;
+
+public class GameServiceTests {
+    private BusyGameDao games;
+    private GameService service;
+    private int gameID;
+
+    @BeforeEach
+    public void setup() throws DataAccessException {
+        games = new BusyGameDao();
+        MemoryAuthDao auths = new MemoryAuthDao();
+        auths.createAuth(new AuthData("token", "player"));
+        service = new GameService(games, auths);
+        gameID = games.createGame("game");
+    }
+
+    @Test
+    @DisplayName("Join Retries When The Game Changes")
+    public void joinRetries() throws Exception {
+        games.conflicts = 2;
+        service.joinGame("token", new JoinRequest(WHITE, gameID));
+
+        Assertions.assertEquals("player", games.getGame(gameID).whiteUsername());
+    }
+
+    @Test
+    @DisplayName("Game That Keeps Changing Is A Conflict When The Seat Is Empty")
+    public void keepsChanging() {
+        games.conflicts = Integer.MAX_VALUE;
+        ServiceException ex = Assertions.assertThrows(ServiceException.class,
+                () -> service.joinGame("token", new JoinRequest(WHITE, gameID)));
+
+        Assertions.assertEquals(ServiceException.ServiceExceptionType.CONFLICT, ex.getType(),
+                "An empty seat was reported as taken");
+    }
+
+    @Test
+    @DisplayName("Seat Taken While Joining Is Already Taken")
+    public void takenWhileJoining() {
+        games.conflicts = Integer.MAX_VALUE;
+        games.takeSeatOnConflict = true;
+        ServiceException ex = Assertions.assertThrows(ServiceException.class,
+                () -> service.joinGame("token", new JoinRequest(WHITE, gameID)));
+
+        Assertions.assertEquals(ServiceException.ServiceExceptionType.ALREADY_TAKEN, ex.getType());
+    }
+
+    /**
+     * Rejects a number of updates as if the game had just been changed by someone else
+     */
+    private static class BusyGameDao extends MemoryGameDao {
+        private int conflicts;
+        private boolean takeSeatOnConflict;
+
+        @Override
+        public synchronized void updateGame(GameData gameData) throws DataAccessException {
+            if (conflicts > 0) {
+                conflicts--;
+                if (takeSeatOnConflict) {
+                    super.updateGame(getGame(gameData.gameID()).withWhiteUsername("someone else"));
+                }
+                throw new ConcurrentUpdateException(gameData.gameID());
+            }
+            super.updateGame(gameData);
+        }
+    }
+}
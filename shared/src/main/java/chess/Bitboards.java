@@ -0,0 +1,154 @@
+package chess;
+
+/**
+ * Static helpers for working with 64-bit bitboards.
+ * <p>
+ * Squares are indexed 0-63 starting from row 1, column 1 (a1) and moving
+ * left to right, bottom to top, so bit {@code (row - 1) * 8 + (col - 1)}
+ * represents the square at (row, col).
+ */
+public final class Bitboards {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+
+    // ray directions, indexing DIRECTIONS
+    public static final int UP = 0;
+    public static final int RIGHT = 1;
+    public static final int UP_RIGHT = 2;
+    public static final int UP_LEFT = 3;
+    public static final int DOWN = 4;
+    public static final int LEFT = 5;
+    public static final int DOWN_LEFT = 6;
+    public static final int DOWN_RIGHT = 7;
+
+    /**
+     * Ray directions as {rowOffset, colOffset}. The first four directions move toward
+     * higher square indexes, the last four toward lower square indexes.
+     */
+    static final int[][] DIRECTIONS = {
+            {1, 0}, {0, 1}, {1, 1}, {1, -1},
+            {-1, 0}, {0, -1}, {-1, -1}, {-1, 1}
+    };
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] RAYS = new long[DIRECTIONS.length][64];
+
+    static {
+        int[][] knightOffsets = {{2, 1}, {2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}, {-2, 1}, {-2, -1}};
+        for (int sq = 0; sq < 64; sq++) {
+            int row = row(sq);
+            int col = column(sq);
+            for (int[] offset : knightOffsets) {
+                KNIGHT_ATTACKS[sq] |= bitIfOnBoard(row + offset[0], col + offset[1]);
+            }
+            for (int[] direction : DIRECTIONS) {
+                KING_ATTACKS[sq] |= bitIfOnBoard(row + direction[0], col + direction[1]);
+            }
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                int r = row + DIRECTIONS[dir][0];
+                int c = col + DIRECTIONS[dir][1];
+                while (isOnBoard(r, c)) {
+                    RAYS[dir][sq] |= bit(square(r, c));
+                    r += DIRECTIONS[dir][0];
+                    c += DIRECTIONS[dir][1];
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * @return the square index for a 1-indexed row and column
+     */
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    /**
+     * @return the 1-indexed row of a square index
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-indexed column of a square index
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static boolean isOnBoard(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @param pawns bitboard of pawns of a single color
+     * @param color the color of the pawns
+     * @return every square attacked diagonally by the given pawns
+     */
+    public static long pawnAttacks(long pawns, ChessGame.TeamColor color) {
+        if (color == ChessGame.TeamColor.WHITE) {
+            return ((pawns & ~FILE_A) << 7) | ((pawns & ~FILE_H) << 9);
+        }
+        return ((pawns & ~FILE_A) >>> 9) | ((pawns & ~FILE_H) >>> 7);
+    }
+
+    public static long rookAttacks(int square, long occupancy) {
+        return rayAttacks(UP, square, occupancy) | rayAttacks(RIGHT, square, occupancy)
+                | rayAttacks(DOWN, square, occupancy) | rayAttacks(LEFT, square, occupancy);
+    }
+
+    public static long bishopAttacks(int square, long occupancy) {
+        return rayAttacks(UP_RIGHT, square, occupancy) | rayAttacks(UP_LEFT, square, occupancy)
+                | rayAttacks(DOWN_LEFT, square, occupancy) | rayAttacks(DOWN_RIGHT, square, occupancy);
+    }
+
+    /**
+     * @param dir one of the directions above, e.g. {@link #UP}
+     * @return every square from the given square to the edge of the board in a direction
+     */
+    public static long ray(int dir, int square) {
+        return RAYS[dir][square];
+    }
+
+    /**
+     * @return whether a direction moves toward higher square indexes
+     */
+    public static boolean isAscending(int dir) {
+        return dir < 4;
+    }
+
+    /**
+     * Gets the squares reachable along a ray, up to and including the first occupied square.
+     */
+    private static long rayAttacks(int dir, int square, long occupancy) {
+        long ray = RAYS[dir][square];
+        long blockers = ray & occupancy;
+        if (blockers == 0) {
+            return ray;
+        }
+        // ascending rays meet their nearest blocker at the lowest bit
+        int blocker = isAscending(dir) ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+        return ray ^ RAYS[dir][blocker];
+    }
+
+    private static long bitIfOnBoard(int row, int col) {
+        return isOnBoard(row, col) ? bit(square(row, col)) : 0L;
+    }
+}
@@ -1,7 +1,6 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 import static chess.ChessGame.TeamColor.*;
 import static chess.ChessPiece.PieceType.*;
@@ -13,7 +12,26 @@ import static chess.ChessPiece.PieceType.*;
  * signature of the existing methods.
  */
 public class ChessBoard {
+    private static final int WHITE_OCCUPANCY = 12;
+    private static final int BLACK_OCCUPANCY = 13;
+    // piece for each piece code used in undo records, 0 being an empty square
+    private static final ChessPiece[] PIECES = new ChessPiece[13];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                PIECES[index(color, type) + 1] = ChessPiece.of(color, type);
+            }
+        }
+    }
+
     private final ChessPiece[][] squares;
+    // one bitboard per color and piece type, followed by the occupancy of each color.
+    // Built lazily from squares so boards deserialized by Gson pick it up on first use. Volatile so
+    // that a board shared between threads that only read it is built once and seen whole.
+    private transient volatile long[] bitboards;
+    private transient int[] kingSquares;
+    private transient long zobristKey;
 
     public ChessBoard() {
         squares = new ChessPiece[8][8];
@@ -24,9 +42,13 @@ public class ChessBoard {
      *
      * @param position where to add the piece to
      * @param piece    the piece to add
+     * @throws IllegalArgumentException if the position is not on the board
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        if (!Bitboards.isOnBoard(position.getRow(), position.getColumn())) {
+            throw new IllegalArgumentException("position is not on the board: " + position);
+        }
+        setPiece(Bitboards.square(position.getRow(), position.getColumn()), piece);
     }
 
     /**
@@ -43,46 +65,211 @@ public class ChessBoard {
         return squares[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * Gets a chess piece on the chessboard
+     *
+     * @param square the square index of the position (see {@link Bitboards})
+     * @return Either the piece on the square, or null if the square is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
         for (int i = 1; i <= 8; i ++) {
-            addPiece(new ChessPosition(2, i), new ChessPiece(WHITE, PAWN));
-            addPiece(new ChessPosition(7, i), new ChessPiece(BLACK, PAWN));
+            addPiece(ChessPosition.of(2, i), ChessPiece.of(WHITE, PAWN));
+            addPiece(ChessPosition.of(7, i), ChessPiece.of(BLACK, PAWN));
         }
 
-        addPiece(new ChessPosition(1, 1), new ChessPiece(WHITE, ROOK));
-        addPiece(new ChessPosition(1, 2), new ChessPiece(WHITE, KNIGHT));
-        addPiece(new ChessPosition(1, 3), new ChessPiece(WHITE, BISHOP));
-        addPiece(new ChessPosition(1, 4), new ChessPiece(WHITE, QUEEN));
-        addPiece(new ChessPosition(1, 5), new ChessPiece(WHITE, KING));
-        addPiece(new ChessPosition(1, 6), new ChessPiece(WHITE, BISHOP));
-        addPiece(new ChessPosition(1, 7), new ChessPiece(WHITE, KNIGHT));
-        addPiece(new ChessPosition(1, 8), new ChessPiece(WHITE, ROOK));
-
-        addPiece(new ChessPosition(8, 1), new ChessPiece(BLACK, ROOK));
-        addPiece(new ChessPosition(8, 2), new ChessPiece(BLACK, KNIGHT));
-        addPiece(new ChessPosition(8, 3), new ChessPiece(BLACK, BISHOP));
-        addPiece(new ChessPosition(8, 4), new ChessPiece(BLACK, QUEEN));
-        addPiece(new ChessPosition(8, 5), new ChessPiece(BLACK, KING));
-        addPiece(new ChessPosition(8, 6), new ChessPiece(BLACK, BISHOP));
-        addPiece(new ChessPosition(8, 7), new ChessPiece(BLACK, KNIGHT));
-        addPiece(new ChessPosition(8, 8), new ChessPiece(BLACK, ROOK));
+        addPiece(ChessPosition.of(1, 1), ChessPiece.of(WHITE, ROOK));
+        addPiece(ChessPosition.of(1, 2), ChessPiece.of(WHITE, KNIGHT));
+        addPiece(ChessPosition.of(1, 3), ChessPiece.of(WHITE, BISHOP));
+        addPiece(ChessPosition.of(1, 4), ChessPiece.of(WHITE, QUEEN));
+        addPiece(ChessPosition.of(1, 5), ChessPiece.of(WHITE, KING));
+        addPiece(ChessPosition.of(1, 6), ChessPiece.of(WHITE, BISHOP));
+        addPiece(ChessPosition.of(1, 7), ChessPiece.of(WHITE, KNIGHT));
+        addPiece(ChessPosition.of(1, 8), ChessPiece.of(WHITE, ROOK));
+
+        addPiece(ChessPosition.of(8, 1), ChessPiece.of(BLACK, ROOK));
+        addPiece(ChessPosition.of(8, 2), ChessPiece.of(BLACK, KNIGHT));
+        addPiece(ChessPosition.of(8, 3), ChessPiece.of(BLACK, BISHOP));
+        addPiece(ChessPosition.of(8, 4), ChessPiece.of(BLACK, QUEEN));
+        addPiece(ChessPosition.of(8, 5), ChessPiece.of(BLACK, KING));
+        addPiece(ChessPosition.of(8, 6), ChessPiece.of(BLACK, BISHOP));
+        addPiece(ChessPosition.of(8, 7), ChessPiece.of(BLACK, KNIGHT));
+        addPiece(ChessPosition.of(8, 8), ChessPiece.of(BLACK, ROOK));
+    }
+
+    /**
+     * Makes a move in place, capturing any piece on the end square and promoting the
+     * moving piece if the move is a promotion. No validation is performed.
+     *
+     * @param move the move to make (see {@link PackedMove})
+     * @return an undo record that restores the board when passed to {@link #unmakeMove(int)}
+     */
+    public int makeMove(int move) {
+        int start = PackedMove.startSquare(move);
+        int end = PackedMove.endSquare(move);
+        ChessPiece movingPiece = getPiece(start);
+        ChessPiece capturedPiece = getPiece(end);
+        ChessPiece.PieceType promotionPiece = PackedMove.promotionPiece(move);
+        setPiece(start, null);
+        setPiece(end, promotionPiece == null ? movingPiece : ChessPiece.of(movingPiece.getTeamColor(), promotionPiece));
+        // the packed move takes the low 15 bits, followed by the codes of the moved and captured pieces
+        return move | (pieceCode(movingPiece) << 15) | (pieceCode(capturedPiece) << 19);
+    }
+
+    /**
+     * Takes back a move made by {@link #makeMove(int)}. Moves must be unmade in the reverse
+     * order they were made.
+     *
+     * @param undo the undo record returned when the move was made
+     */
+    public void unmakeMove(int undo) {
+        setPiece(PackedMove.endSquare(undo), PIECES[(undo >>> 19) & 15]);
+        setPiece(PackedMove.startSquare(undo), PIECES[(undo >>> 15) & 15]);
     }
 
     public ChessBoard copy() {
         ChessBoard copy = new ChessBoard();
-        for (int i = 1; i <=8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPiece piece = this.getPiece(new ChessPosition(i, j));
+        // pieces are immutable, so the rows can be shallow copied
+        for (int i = 0; i < 8; i++) {
+            System.arraycopy(squares[i], 0, copy.squares[i], 0, 8);
+        }
+        copy.bitboards = bitboards().clone();
+        copy.kingSquares = kingSquares.clone();
+        copy.zobristKey = zobristKey;
+        return copy;
+    }
+
+    /**
+     * @return bitboard of every square holding a piece of the given color and type
+     */
+    public long getBitboard(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return bitboards()[index(color, type)];
+    }
+
+    /**
+     * @return bitboard of every square holding a piece of the given color
+     */
+    public long getOccupancy(ChessGame.TeamColor color) {
+        return bitboards()[color == WHITE ? WHITE_OCCUPANCY : BLACK_OCCUPANCY];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupancy() {
+        long[] boards = bitboards();
+        return boards[WHITE_OCCUPANCY] | boards[BLACK_OCCUPANCY];
+    }
+
+    /**
+     * Gets the Zobrist key of the pieces on the board, which is kept up to date as pieces
+     * are added, moved and removed. See {@link ChessGame#getZobristKey()} for a key that
+     * also covers the side to move.
+     *
+     * @return a 64-bit hash of the pieces on the board
+     */
+    public long getZobristKey() {
+        bitboards();
+        return zobristKey;
+    }
+
+    /**
+     * @return the square index of the given team's king, or -1 if it has no king on the board
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        bitboards();
+        return kingSquares[color.ordinal()];
+    }
+
+    /**
+     * Determines if a square is attacked by any piece of a team, working outward from the square
+     * rather than generating the moves of every enemy piece.
+     *
+     * @param square   the square in question (see {@link Bitboards})
+     * @param attacker the attacking team
+     * @return true if a piece of the attacking team could capture on the square
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor attacker) {
+        // a pawn attacks this square exactly when a pawn of the other color here would attack the pawn
+        ChessGame.TeamColor defender = attacker == WHITE ? BLACK : WHITE;
+        if ((Bitboards.pawnAttacks(Bitboards.bit(square), defender) & getBitboard(attacker, PAWN)) != 0
+                || (Bitboards.knightAttacks(square) & getBitboard(attacker, KNIGHT)) != 0
+                || (Bitboards.kingAttacks(square) & getBitboard(attacker, KING)) != 0) {
+            return true;
+        }
+        long occupancy = getOccupancy();
+        long queens = getBitboard(attacker, QUEEN);
+        return (Bitboards.rookAttacks(square, occupancy) & (getBitboard(attacker, ROOK) | queens)) != 0
+                || (Bitboards.bishopAttacks(square, occupancy) & (getBitboard(attacker, BISHOP) | queens)) != 0;
+    }
+
+    private long[] bitboards() {
+        long[] boards = bitboards;
+        return boards == null ? buildBitboards() : boards;
+    }
+
+    private synchronized long[] buildBitboards() {
+        if (bitboards == null) {
+            long[] boards = new long[14];
+            long key = 0;
+            for (int square = 0; square < 64; square++) {
+                ChessPiece piece = getPiece(square);
                 if (piece != null) {
-                    copy.addPiece(new ChessPosition(i, j), new ChessPiece(piece.getTeamColor(), piece.getPieceType()));
+                    int index = index(piece.getTeamColor(), piece.getPieceType());
+                    boards[index] |= Bitboards.bit(square);
+                    boards[piece.getTeamColor() == WHITE ? WHITE_OCCUPANCY : BLACK_OCCUPANCY] |= Bitboards.bit(square);
+                    key ^= Zobrist.pieceKey(index, square);
                 }
             }
+            long whiteKings = boards[index(WHITE, KING)];
+            long blackKings = boards[index(BLACK, KING)];
+            kingSquares = new int[]{
+                    whiteKings == 0 ? -1 : Long.numberOfTrailingZeros(whiteKings),
+                    blackKings == 0 ? -1 : Long.numberOfTrailingZeros(blackKings)
+            };
+            zobristKey = key;
+            // publish last, so a thread that sees the bitboards also sees the king squares and key
+            bitboards = boards;
         }
-        return copy;
+        return bitboards;
+    }
+
+    private void setPiece(int square, ChessPiece piece) {
+        if (bitboards != null) {
+            toggle(getPiece(square), square);
+            toggle(piece, square);
+        }
+        squares[square >>> 3][square & 7] = piece;
+    }
+
+    private void toggle(ChessPiece piece, int square) {
+        if (piece == null) {
+            return;
+        }
+        long bit = Bitboards.bit(square);
+        int index = index(piece.getTeamColor(), piece.getPieceType());
+        bitboards[index] ^= bit;
+        zobristKey ^= Zobrist.pieceKey(index, square);
+        bitboards[piece.getTeamColor() == WHITE ? WHITE_OCCUPANCY : BLACK_OCCUPANCY] ^= bit;
+        if (piece.getPieceType() == KING) {
+            long kings = bitboards[index];
+            kingSquares[piece.getTeamColor().ordinal()] = kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+        }
+    }
+
+    private static int index(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    private static int pieceCode(ChessPiece piece) {
+        return piece == null ? 0 : index(piece.getTeamColor(), piece.getPieceType()) + 1;
     }
 
     @Override
@@ -91,12 +278,12 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) object;
-        return Objects.deepEquals(squares, that.squares);
+        return getZobristKey() == that.getZobristKey() && Arrays.equals(bitboards, that.bitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(getZobristKey());
     }
 
     @Override
@@ -106,9 +293,9 @@ public class ChessBoard {
             // add each piece in the row, starting with row 8
             for (int j = 1; j <= 8; j++) {
                 out.append("|");
-                ChessPiece piece = getPiece(new ChessPosition(i, j));
+                ChessPiece piece = getPiece(ChessPosition.of(i, j));
                 if (piece != null) {
-                    out.append(getPiece(new ChessPosition(i, j)).toString());
+                    out.append(piece);
                 } else {
                     out.append(" ");
                 }
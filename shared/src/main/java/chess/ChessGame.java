@@ -1,5 +1,7 @@
 package chess;
 
+import movecalculators.MoveCalculator;
+
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Objects;
@@ -7,13 +9,26 @@ import java.util.Objects;
 /**
  * For a class that can manage a chess game, making moves on a board
  * <p>
+ * A game can be read from several threads at once as long as none of them changes it. Methods that
+ * test moves for legality make them on a copy of the board, never on the game's own board.
+ * {@link #evaluateStatus()} memoizes its result in the game, so call it before sharing the game.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
 public class ChessGame {
+    /**
+     * Upper bound on the number of valid moves a team can have in any position
+     */
+    public static final int MAX_MOVES = 256;
+
     private TeamColor teamTurn;
     private ChessBoard board;
     private boolean isOver;
+    // number of moves made since the start of the game
+    private int ply;
+    // memoized result of evaluateStatus, cleared whenever the position changes
+    private transient GameStatus status;
 
     public ChessGame() {
         setBoard(new ChessBoard());
@@ -22,6 +37,11 @@ public class ChessGame {
         isOver = false;
     }
 
+    private ChessGame(ChessBoard board, TeamColor teamTurn) {
+        this.board = board;
+        this.teamTurn = teamTurn;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -36,6 +56,7 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.teamTurn = team;
+        status = null;
     }
 
     /**
@@ -46,6 +67,16 @@ public class ChessGame {
         BLACK
     }
 
+    /**
+     * Enum identifying the state of a game from the point of view of the team whose turn it is
+     */
+    public enum GameStatus {
+        ONGOING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -58,33 +89,77 @@ public class ChessGame {
         if (movingPiece == null) {
             return null;
         }
-        Collection<ChessMove> pieceMoves = movingPiece.pieceMoves(board, startPosition);
+        int[] moves = new int[MoveCalculator.MAX_PIECE_MOVES];
+        int count = validMoves(board.copy(), Bitboards.square(startPosition.getRow(), startPosition.getColumn()),
+                moves, 0);
         Collection<ChessMove> validMoves = new HashSet<>();
-        for (ChessMove m : pieceMoves) {
-            if (isValidMove(m)) {
-                validMoves.add(m);
-            }
+        for (int i = 0; i < count; i++) {
+            validMoves.add(PackedMove.toChessMove(moves[i]));
         }
         return validMoves;
     }
 
     /**
-     * Makes the move "hypothetically" on a clone board and asserts that the move did not put its own king in check.
-     * @param move the potential move
-     * @return true if the move would not put its own king in check, false otherwise
+     * Writes the valid moves for the piece on the given square into a caller-supplied buffer
+     *
+     * @param square the square of the piece to get valid moves for (see {@link Bitboards})
+     * @param moves  buffer the moves are written to (see {@link PackedMove}), which needs room for
+     *               {@link MoveCalculator#MAX_PIECE_MOVES} moves past count
+     * @param count  the index in the buffer to start writing at
+     * @return the new number of moves in the buffer
      */
-    private boolean isValidMove(ChessMove move) {
-        // clone board and make move
-        ChessGame cloneGame = this.copy();
-        ChessBoard board = cloneGame.getBoard();
-        ChessPiece movingPiece = board.getPiece(move.getStartPosition());
+    public int validMoves(int square, int[] moves, int count) {
+        return validMoves(board.copy(), square, moves, count);
+    }
+
+    /**
+     * @param scratch a board in the same position as the game's, which moves are tried out on
+     */
+    private int validMoves(ChessBoard scratch, int square, int[] moves, int count) {
+        ChessPiece movingPiece = scratch.getPiece(square);
         if (movingPiece == null) {
-            return false;
+            return count;
+        }
+        int end = movingPiece.pieceMoves(scratch, square, moves, count);
+        // keep only the legal moves, compacting them in place
+        for (int i = count; i < end; i++) {
+            if (isValidMove(scratch, moves[i])) {
+                moves[count++] = moves[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the valid moves for every piece of a team into a caller-supplied buffer
+     *
+     * @param teamColor the team to get valid moves for
+     * @param moves     buffer the moves are written to (see {@link PackedMove}), which needs room for
+     *                  {@link #MAX_MOVES} moves past count
+     * @param count     the index in the buffer to start writing at
+     * @return the new number of moves in the buffer
+     */
+    public int validMoves(TeamColor teamColor, int[] moves, int count) {
+        ChessBoard scratch = board.copy();
+        for (long pieces = scratch.getOccupancy(teamColor); pieces != 0; pieces &= pieces - 1) {
+            count = validMoves(scratch, Long.numberOfTrailingZeros(pieces), moves, count);
         }
-        board.addPiece(move.getStartPosition(), null);
-        board.addPiece(move.getEndPosition(), movingPiece);
+        return count;
+    }
+
+    /**
+     * Makes the move "hypothetically" on a scratch board and asserts that the move did not put its own king in check,
+     * restoring the scratch board before returning.
+     * @param move the potential move (see {@link PackedMove})
+     * @return true if the move would not put its own king in check, false otherwise
+     */
+    private static boolean isValidMove(ChessBoard scratch, int move) {
+        TeamColor movingColor = scratch.getPiece(PackedMove.startSquare(move)).getTeamColor();
+        int undo = scratch.makeMove(move);
         // check if the move put its own team in check
-        return !cloneGame.isInCheck(movingPiece.getTeamColor());
+        boolean valid = !isInCheck(scratch, movingColor);
+        scratch.unmakeMove(undo);
+        return valid;
     }
 
     /**
@@ -94,25 +169,35 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        if (validMoves(move.getStartPosition()) == null) {
+        ChessPiece movingPiece = board.getPiece(move.getStartPosition());
+        if (movingPiece == null) {
             throw new InvalidMoveException("Invalid move: there's no piece at that position");
         }
-        if (!validMoves(move.getStartPosition()).contains(move)) {
+        int packedMove = PackedMove.encode(move);
+        if (!isAmongValidMoves(packedMove)) {
             throw new InvalidMoveException("Invalid move: " + move);
         }
-        if (board.getPiece(move.getStartPosition()).getTeamColor() != teamTurn) {
+        if (movingPiece.getTeamColor() != teamTurn) {
             throw new InvalidMoveException("Invalid move: it's not that color's turn");
         }
-        ChessPiece pieceToAdd = board.getPiece(move.getStartPosition());
-        if (move.getPromotionPiece() != null) {
-            pieceToAdd = new ChessPiece(pieceToAdd.getTeamColor(), move.getPromotionPiece());
+        board.makeMove(packedMove);
+        teamTurn = opponent(teamTurn);
+        ply++;
+        status = null;
+    }
+
+    private boolean isAmongValidMoves(int packedMove) {
+        if (packedMove < 0) {
+            return false;
+        }
+        int[] moves = new int[MoveCalculator.MAX_PIECE_MOVES];
+        int count = validMoves(board.copy(), PackedMove.startSquare(packedMove), moves, 0);
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == packedMove) {
+                return true;
+            }
         }
-        board.addPiece(move.getEndPosition(), pieceToAdd);
-        board.addPiece(move.getStartPosition(), null);
-        teamTurn = switch(teamTurn) {
-            case WHITE -> TeamColor.BLACK;
-            case BLACK -> TeamColor.WHITE;
-        };
+        return false;
     }
 
     /**
@@ -122,34 +207,16 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPiece currentPiece;
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                currentPiece = board.getPiece(new ChessPosition(i, j));
-                if (pieceAttackingKing(currentPiece, board, new ChessPosition(i, j), teamColor)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return isInCheck(board, teamColor);
     }
 
-    private boolean pieceAttackingKing(
-            ChessPiece currentPiece,
-            ChessBoard board,
-            ChessPosition currentPosition,
-            TeamColor kingColor
-    ) {
-        if (currentPiece != null && currentPiece.getTeamColor() != kingColor) {
-            for (ChessMove m : currentPiece.pieceMoves(board, currentPosition)) {
-                if (board.getPiece(m.getEndPosition()) != null &&
-                        board.getPiece(m.getEndPosition()).equals(
-                                new ChessPiece(kingColor, ChessPiece.PieceType.KING))) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    private static boolean isInCheck(ChessBoard board, TeamColor teamColor) {
+        int kingSquare = board.getKingSquare(teamColor);
+        return kingSquare >= 0 && board.isSquareAttacked(kingSquare, opponent(teamColor));
+    }
+
+    private static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     /**
@@ -162,7 +229,7 @@ public class ChessGame {
         if (!isInCheck(teamColor)) {
             return false;
         }
-        return teamHasValidMoves(teamColor);
+        return teamHasNoValidMoves(teamColor);
     }
 
     /**
@@ -173,22 +240,37 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        if (isInCheck(teamColor) || isInCheckmate(teamColor)) {
+        if (isInCheck(teamColor)) {
             return false;
         }
-        return teamHasValidMoves(teamColor);
-    }
-
-    private boolean teamHasValidMoves(TeamColor teamColor) {
-        ChessPiece currentPiece;
-        for (int i = 0; i <= 8; i++) {
-            for (int j = 0; j <= 8; j++) {
-                currentPiece = board.getPiece(new ChessPosition(i, j));
-                if (currentPiece != null &&
-                        currentPiece.getTeamColor() == teamColor &&
-                        !validMoves(new ChessPosition(i, j)).isEmpty()) {
-                    return false;
-                }
+        return teamHasNoValidMoves(teamColor);
+    }
+
+    /**
+     * Determines whether the team whose turn it is is in check, checkmate or stalemate.
+     * The result is computed once and reused until the next move, board or turn change;
+     * edits made directly to the board returned by {@link #getBoard()} are not detected.
+     *
+     * @return the status of the game for the team whose turn it is
+     */
+    public GameStatus evaluateStatus() {
+        if (status == null) {
+            boolean inCheck = isInCheck(teamTurn);
+            if (teamHasNoValidMoves(teamTurn)) {
+                status = inCheck ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
+            } else {
+                status = inCheck ? GameStatus.CHECK : GameStatus.ONGOING;
+            }
+        }
+        return status;
+    }
+
+    private boolean teamHasNoValidMoves(TeamColor teamColor) {
+        int[] moves = new int[MoveCalculator.MAX_PIECE_MOVES];
+        ChessBoard scratch = board.copy();
+        for (long pieces = scratch.getOccupancy(teamColor); pieces != 0; pieces &= pieces - 1) {
+            if (validMoves(scratch, Long.numberOfTrailingZeros(pieces), moves, 0) > 0) {
+                return false;
             }
         }
         return true;
@@ -201,6 +283,7 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        status = null;
     }
 
     /**
@@ -226,10 +309,24 @@ public class ChessGame {
         isOver = true;
     }
 
+    /**
+     * @return the number of moves made in this game, which identifies each position the game has been in
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * @param ply the number of moves made before the current position, e.g. when restoring a stored game
+     */
+    public void setPly(int ply) {
+        this.ply = ply;
+    }
+
     public ChessGame copy() {
-        ChessGame copy = new ChessGame();
-        copy.setBoard(this.board.copy());
-        copy.setTeamTurn(this.teamTurn);
+        ChessGame copy = new ChessGame(board.copy(), teamTurn);
+        copy.isOver = isOver;
+        copy.ply = ply;
         return copy;
     }
 
@@ -242,8 +339,19 @@ public class ChessGame {
         return teamTurn == chessGame.teamTurn && Objects.equals(board, chessGame.board);
     }
 
+    /**
+     * Gets the Zobrist key of the position: the pieces on the board and the side to move.
+     * It is maintained incrementally, so this is constant time.
+     *
+     * @return a 64-bit hash of the position
+     */
+    public long getZobristKey() {
+        long key = board.getZobristKey();
+        return teamTurn == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(teamTurn, board);
+        return Long.hashCode(getZobristKey());
     }
 }
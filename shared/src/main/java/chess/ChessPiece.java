@@ -14,6 +14,23 @@ import static chess.ChessGame.TeamColor.WHITE;
  * signature of the existing methods.
  */
 public class ChessPiece {
+    private static final MoveCalculator BISHOP_MOVES = new BishopMoveCalculator();
+    private static final MoveCalculator ROOK_MOVES = new RookMoveCalculator();
+    private static final MoveCalculator QUEEN_MOVES = new QueenMoveCalculator();
+    private static final MoveCalculator KNIGHT_MOVES = new KnightMoveCalculator();
+    private static final MoveCalculator KING_MOVES = new KingMoveCalculator();
+    private static final MoveCalculator PAWN_MOVES = new PawnMoveCalculator();
+
+    private static final ChessPiece[][] PIECES = new ChessPiece[2][6];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[color.ordinal()][type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     private final ChessGame.TeamColor color;
     private final PieceType type;
 
@@ -22,6 +39,16 @@ public class ChessPiece {
         this.type = type;
     }
 
+    /**
+     * Gets the shared instance for a piece. Pieces are immutable, so this should be
+     * preferred over the constructor to avoid allocating.
+     *
+     * @return the cached piece of the given color and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[pieceColor.ordinal()][type.ordinal()];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -56,13 +83,31 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
+        return moveCalculator().pieceMoves(board, myPosition);
+    }
+
+    /**
+     * Writes all the moves of the piece on the given square into a caller-supplied buffer
+     * Does not take into account moves that are illegal due to leaving the king in
+     * danger
+     *
+     * @param square the square the piece is on (see {@link Bitboards})
+     * @param moves  buffer the moves are written to (see {@link PackedMove})
+     * @param count  the index in the buffer to start writing at
+     * @return the new number of moves in the buffer
+     */
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int count) {
+        return moveCalculator().pieceMoves(board, square, moves, count);
+    }
+
+    private MoveCalculator moveCalculator() {
         return switch(type) {
-            case BISHOP -> new BishopMoveCalculator().pieceMoves(board, myPosition);
-            case ROOK -> new RookMoveCalculator().pieceMoves(board, myPosition);
-            case QUEEN -> new QueenMoveCalculator().pieceMoves(board, myPosition);
-            case KNIGHT -> new KnightMoveCalculator().pieceMoves(board, myPosition);
-            case KING -> new KingMoveCalculator().pieceMoves(board, myPosition);
-            case PAWN -> new PawnMoveCalculator().pieceMoves(board, myPosition);
+            case BISHOP -> BISHOP_MOVES;
+            case ROOK -> ROOK_MOVES;
+            case QUEEN -> QUEEN_MOVES;
+            case KNIGHT -> KNIGHT_MOVES;
+            case KING -> KING_MOVES;
+            case PAWN -> PAWN_MOVES;
         };
     }
 
@@ -77,7 +122,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(color, type);
+        return 31 * Objects.hashCode(color) + Objects.hashCode(type);
     }
 
     @Override
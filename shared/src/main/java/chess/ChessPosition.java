@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -9,6 +7,16 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPosition {
+    private static final ChessPosition[] POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                POSITIONS[(row - 1) * 8 + (col - 1)] = new ChessPosition(row, col);
+            }
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -17,6 +25,19 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets the shared instance for a position. Positions are immutable, so this should be
+     * preferred over the constructor to avoid allocating.
+     *
+     * @return the cached position for squares on the board, or a new position otherwise
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return POSITIONS[(row - 1) * 8 + (col - 1)];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -44,7 +65,7 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return 31 * row + col;
     }
 
     @Override
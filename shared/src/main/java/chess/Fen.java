@@ -0,0 +1,110 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ * <p>
+ * Only the piece placement and side to move fields are used. Castling and en passant
+ * are not part of the rules implemented by {@link ChessGame}, so those fields and the
+ * move clocks are ignored if present.
+ */
+public final class Fen {
+    public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+
+    private Fen() {
+    }
+
+    /**
+     * @param fen the position to read
+     * @return a game set up with the given position and side to move
+     * @throws IllegalArgumentException if the placement or side to move is malformed
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        ChessGame game = new ChessGame();
+        game.setBoard(parseBoard(fields[0]));
+        if (fields.length > 1) {
+            game.setTeamTurn(switch (fields[1]) {
+                case "w" -> ChessGame.TeamColor.WHITE;
+                case "b" -> ChessGame.TeamColor.BLACK;
+                default -> throw new IllegalArgumentException("invalid side to move: " + fields[1]);
+            });
+        }
+        return game;
+    }
+
+    /**
+     * @param placement the piece placement field of a FEN string
+     * @return a board holding the given pieces
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    public static ChessBoard parseBoard(String placement) {
+        String[] ranks = placement.split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("expected 8 ranks: " + placement);
+        }
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int col = 1;
+            for (char c : ranks[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                } else {
+                    if (col > 8) {
+                        throw new IllegalArgumentException("rank " + row + " is too long: " + placement);
+                    }
+                    board.addPiece(ChessPosition.of(row, col), parsePiece(c));
+                    col++;
+                }
+            }
+            if (col != 9) {
+                throw new IllegalArgumentException("rank " + row + " does not have 8 squares: " + placement);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @param board the board to describe
+     * @return the piece placement field of a FEN string for the board
+     */
+    public static String formatBoard(ChessBoard board) {
+        StringBuilder out = new StringBuilder(71);
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append(empty);
+                    empty = 0;
+                }
+                out.append(piece);
+            }
+            if (empty > 0) {
+                out.append(empty);
+            }
+            if (row > 1) {
+                out.append('/');
+            }
+        }
+        return out.toString();
+    }
+
+    private static ChessPiece parsePiece(char c) {
+        ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        ChessPiece.PieceType type = switch (Character.toLowerCase(c)) {
+            case 'p' -> ChessPiece.PieceType.PAWN;
+            case 'n' -> ChessPiece.PieceType.KNIGHT;
+            case 'b' -> ChessPiece.PieceType.BISHOP;
+            case 'r' -> ChessPiece.PieceType.ROOK;
+            case 'q' -> ChessPiece.PieceType.QUEEN;
+            case 'k' -> ChessPiece.PieceType.KING;
+            default -> throw new IllegalArgumentException("invalid piece: " + c);
+        };
+        return ChessPiece.of(color, type);
+    }
+}
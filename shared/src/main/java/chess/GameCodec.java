@@ -0,0 +1,55 @@
+package chess;
+
+import com.google.gson.Gson;
+
+/**
+ * Compact text form of a {@link ChessGame} used for storage, e.g.
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w 0 0}.
+ * <p>
+ * The fields are the FEN piece placement, the side to move ({@code w} or {@code b}), whether
+ * the game is over ({@code 1} or {@code 0}) and the number of moves made. The move count may be
+ * missing from games stored before it was added, and games stored as Gson JSON before this format
+ * existed are still read.
+ */
+public final class GameCodec {
+    private static final Gson GSON = new Gson();
+
+    private GameCodec() {
+    }
+
+    public static String encode(ChessGame game) {
+        return Fen.formatBoard(game.getBoard())
+                + (game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ")
+                + (game.isOver() ? "1 " : "0 ")
+                + game.getPly();
+    }
+
+    /**
+     * @param encoded a game written by {@link #encode}, or a game serialized as JSON by Gson
+     * @return the decoded game
+     * @throws IllegalArgumentException if the text is malformed
+     */
+    public static ChessGame decode(String encoded) {
+        if (encoded.startsWith("{")) {
+            return GSON.fromJson(encoded, ChessGame.class);
+        }
+        String[] fields = encoded.split(" ");
+        if (fields.length < 3) {
+            throw new IllegalArgumentException("expected placement, side to move and over flag: " + encoded);
+        }
+        ChessGame game = Fen.parse(fields[0] + " " + fields[1]);
+        switch (fields[2]) {
+            case "1" -> game.setOver();
+            case "0" -> { }
+            default -> throw new IllegalArgumentException("invalid over flag: " + fields[2]);
+        }
+        if (fields.length > 3) {
+            try {
+                game.setPly(Integer.parseInt(fields[3]));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("invalid move count: " + fields[3]);
+            }
+        }
+        return game;
+    }
+}
@@ -0,0 +1,61 @@
+package chess;
+
+/**
+ * Reads and writes moves in coordinate notation: the start and end squares followed by the
+ * promotion piece if there is one, e.g. {@code e2e4} or {@code b7b8q}.
+ */
+public final class MoveNotation {
+    private MoveNotation() {
+    }
+
+    public static String format(ChessMove move) {
+        return format(PackedMove.encode(move));
+    }
+
+    /**
+     * @param move a move packed as described in {@link PackedMove}
+     */
+    public static String format(int move) {
+        StringBuilder out = new StringBuilder(5);
+        appendSquare(out, PackedMove.startSquare(move));
+        appendSquare(out, PackedMove.endSquare(move));
+        ChessPiece.PieceType promotion = PackedMove.promotionPiece(move);
+        if (promotion != null) {
+            out.append(ChessPiece.of(ChessGame.TeamColor.BLACK, promotion));
+        }
+        return out.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not a move in coordinate notation
+     */
+    public static ChessMove parse(String text) {
+        if (text.length() != 4 && text.length() != 5) {
+            throw new IllegalArgumentException("invalid move: " + text);
+        }
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            promotion = switch (text.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw new IllegalArgumentException("invalid promotion piece: " + text);
+            };
+        }
+        return new ChessMove(parseSquare(text, 0), parseSquare(text, 2), promotion);
+    }
+
+    private static void appendSquare(StringBuilder out, int square) {
+        out.append((char) ('a' + Bitboards.column(square) - 1)).append(Bitboards.row(square));
+    }
+
+    private static ChessPosition parseSquare(String text, int index) {
+        int col = text.charAt(index) - 'a' + 1;
+        int row = text.charAt(index + 1) - '0';
+        if (!Bitboards.isOnBoard(row, col)) {
+            throw new IllegalArgumentException("invalid square in move: " + text);
+        }
+        return ChessPosition.of(row, col);
+    }
+}
@@ -0,0 +1,62 @@
+package chess;
+
+/**
+ * Static helpers for moves packed into a single int, used by the move generators to
+ * write moves into caller-supplied buffers without allocating a {@link ChessMove} each.
+ * <p>
+ * Bits 0-5 hold the start square, bits 6-11 the end square and bits 12-14 the
+ * promotion piece (the {@link ChessPiece.PieceType} ordinal plus one, or 0 for none).
+ * Squares are indexed as described in {@link Bitboards}.
+ */
+public final class PackedMove {
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    public static int encode(int startSquare, int endSquare, ChessPiece.PieceType promotionPiece) {
+        int promotion = promotionPiece == null ? 0 : promotionPiece.ordinal() + 1;
+        return startSquare | (endSquare << 6) | (promotion << 12);
+    }
+
+    /**
+     * @return the packed form of the move, or -1 if either position is off the board
+     */
+    public static int encode(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        if (!Bitboards.isOnBoard(start.getRow(), start.getColumn())
+                || !Bitboards.isOnBoard(end.getRow(), end.getColumn())) {
+            return -1;
+        }
+        return encode(Bitboards.square(start.getRow(), start.getColumn()),
+                Bitboards.square(end.getRow(), end.getColumn()),
+                move.getPromotionPiece());
+    }
+
+    public static int startSquare(int move) {
+        return move & 63;
+    }
+
+    public static int endSquare(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the piece type to promote to, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotionPiece(int move) {
+        int promotion = (move >>> 12) & 7;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    public static ChessMove toChessMove(int move) {
+        int start = startSquare(move);
+        int end = endSquare(move);
+        return new ChessMove(
+                ChessPosition.of(Bitboards.row(start), Bitboards.column(start)),
+                ChessPosition.of(Bitboards.row(end), Bitboards.column(end)),
+                promotionPiece(move)
+        );
+    }
+}
@@ -0,0 +1,101 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree from a position ("perft"), which is used to check
+ * the move generator against known node counts and to measure its raw throughput.
+ * <p>
+ * Run {@code java -cp shared/target/classes chess.Perft <depth> [fen]} to print the node count below
+ * each root move along with the total and the nodes searched per second.
+ */
+public final class Perft {
+    private Perft() {
+    }
+
+    /**
+     * @param game  the position to search from; its board is restored before returning
+     * @param depth the number of plies to search
+     * @return the number of positions reachable in exactly depth plies
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return count(game, game.getTeamTurn(), depth, new int[depth + 1][ChessGame.MAX_MOVES]);
+    }
+
+    /**
+     * Runs perft below each legal move of the side to move.
+     *
+     * @param game  the position to search from; its board is restored before returning
+     * @param depth the number of plies to search, including the root move
+     * @return the node count below each root move, keyed by the move in coordinate notation (e.g. e2e4)
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth) {
+        Map<String, Long> results = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return results;
+        }
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor color = game.getTeamTurn();
+        int[][] buffers = new int[depth + 1][ChessGame.MAX_MOVES];
+        int[] moves = buffers[depth];
+        int count = game.validMoves(color, moves, 0);
+        for (int i = 0; i < count; i++) {
+            int undo = board.makeMove(moves[i]);
+            long nodes = depth == 1 ? 1 : count(game, opponent(color), depth - 1, buffers);
+            board.unmakeMove(undo);
+            results.put(MoveNotation.format(moves[i]), nodes);
+        }
+        return results;
+    }
+
+    private static long count(ChessGame game, ChessGame.TeamColor color, int depth, int[][] buffers) {
+        int[] moves = buffers[depth];
+        int count = game.validMoves(color, moves, 0);
+        if (depth == 1) {
+            return count;
+        }
+        ChessBoard board = game.getBoard();
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            int undo = board.makeMove(moves[i]);
+            nodes += count(game, opponent(color), depth - 1, buffers);
+            board.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    private static ChessGame.TeamColor opponent(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("usage: Perft <depth> [fen]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        String fen = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length))
+                : Fen.STARTING_POSITION;
+        ChessGame game = Fen.parse(fen);
+
+        long start = System.nanoTime();
+        Map<String, Long> results = divide(game, depth);
+        long elapsed = System.nanoTime() - start;
+
+        long total = 0;
+        for (Map.Entry<String, Long> entry : results.entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            total += entry.getValue();
+        }
+        double seconds = elapsed / 1e9;
+        System.out.println();
+        System.out.println("Nodes: " + total);
+        System.out.printf("Time: %.3f s%n", seconds);
+        System.out.printf("Nodes per second: %.0f%n", total / seconds);
+    }
+}
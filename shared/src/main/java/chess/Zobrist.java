@@ -0,0 +1,41 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing of positions. A position's key is the XOR of the key of every
+ * piece on its square, plus {@link #BLACK_TO_MOVE} when it is black's turn, so it can be updated
+ * incrementally as pieces are added and removed.
+ * <p>
+ * The keys come from a fixed-seed SplitMix64 generator, so the same position has the same key
+ * in every JVM and keys can be compared across servers.
+ */
+final class Zobrist {
+    static final long BLACK_TO_MOVE;
+
+    // indexed by color.ordinal() * 6 + type.ordinal(), then by square
+    private static final long[][] PIECE_KEYS = new long[12][64];
+
+    static {
+        long state = 0x240C4E55L;
+        for (long[] keys : PIECE_KEYS) {
+            for (int sq = 0; sq < 64; sq++) {
+                state += 0x9E3779B97F4A7C15L;
+                keys[sq] = mix(state);
+            }
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+    }
+
+    private Zobrist() {
+    }
+
+    static long pieceKey(int pieceIndex, int square) {
+        return PIECE_KEYS[pieceIndex][square];
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
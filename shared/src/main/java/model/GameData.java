@@ -2,5 +2,29 @@ package model;
 
 import chess.ChessGame;
 
-public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+/**
+ * @param version how many times the game has been updated, used to detect concurrent updates. The
+ *                {@code with} methods return the next version.
+ */
+public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game,
+                       int version) {
+
+    /**
+     * Creates the first version of a game
+     */
+    public GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+        this(gameID, whiteUsername, blackUsername, gameName, game, 0);
+    }
+
+    public GameData withGame(ChessGame game) {
+        return new GameData(gameID, whiteUsername, blackUsername, gameName, game, version + 1);
+    }
+
+    public GameData withWhiteUsername(String whiteUsername) {
+        return new GameData(gameID, whiteUsername, blackUsername, gameName, game, version + 1);
+    }
+
+    public GameData withBlackUsername(String blackUsername) {
+        return new GameData(gameID, whiteUsername, blackUsername, gameName, game, version + 1);
+    }
 }
@@ -0,0 +1,39 @@
+package model;
+
+import chess.ChessGame;
+
+/**
+ * What the lobby shows about a game, without the board
+ */
+public record GameSummary(int gameID, String whiteUsername, String blackUsername, String gameName, Status status) {
+
+    public enum Status {
+        /** a seat is still empty */
+        OPEN,
+        /** both seats are taken and the game is still being played */
+        IN_PROGRESS,
+        /** someone resigned, or there are no moves left */
+        FINISHED
+    }
+
+    public static GameSummary of(GameData gameData) {
+        return new GameSummary(gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(),
+                gameData.gameName(), statusOf(gameData));
+    }
+
+    /**
+     * Evaluates the game's status unless it is already memoized, so a game being read by several
+     * threads should have its status evaluated before it is shared
+     */
+    public static Status statusOf(GameData gameData) {
+        ChessGame game = gameData.game();
+        if (game.isOver()) {
+            return Status.FINISHED;
+        }
+        ChessGame.GameStatus status = game.evaluateStatus();
+        if (status == ChessGame.GameStatus.CHECKMATE || status == ChessGame.GameStatus.STALEMATE) {
+            return Status.FINISHED;
+        }
+        return gameData.whiteUsername() == null || gameData.blackUsername() == null ? Status.OPEN : Status.IN_PROGRESS;
+    }
+}
@@ -0,0 +1,11 @@
+package model.request;
+
+import model.GameSummary;
+
+/**
+ * @param status only list games with this status, or every game if null
+ * @param cursor the nextCursor of the previous page, or null for the first page
+ * @param limit  the most games to list
+ */
+public record ListGamesRequest(GameSummary.Status status, String cursor, int limit) {
+}
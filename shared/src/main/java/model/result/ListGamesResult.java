@@ -1,8 +1,11 @@
 package model.result;
 
-import model.GameData;
+import model.GameSummary;
 
 import java.util.List;
 
-public record ListGamesResult(List<GameData> games) {
+/**
+ * @param nextCursor pass this back to get the next page, or null if this is the last page
+ */
+public record ListGamesResult(List<GameSummary> games, String nextCursor) {
 }
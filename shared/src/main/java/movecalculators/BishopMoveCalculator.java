@@ -1,28 +1,15 @@
 package movecalculators;
 
+import chess.Bitboards;
 import chess.ChessBoard;
-import chess.ChessMove;
-import chess.ChessPosition;
-
-import java.util.Collection;
-import java.util.HashSet;
 
 public class BishopMoveCalculator implements MoveCalculator {
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new HashSet<>();
-        for (ChessPosition p : getMovesInDirection(myPosition, board, 1, 1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
-        for (ChessPosition p : getMovesInDirection(myPosition, board, 1, -1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
-        for (ChessPosition p : getMovesInDirection(myPosition, board, -1, 1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
-        for (ChessPosition p : getMovesInDirection(myPosition, board, -1, -1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
-        return moves;
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int count) {
+        count = getMovesInDirection(square, board, Bitboards.UP_RIGHT, moves, count);
+        count = getMovesInDirection(square, board, Bitboards.UP_LEFT, moves, count);
+        count = getMovesInDirection(square, board, Bitboards.DOWN_RIGHT, moves, count);
+        count = getMovesInDirection(square, board, Bitboards.DOWN_LEFT, moves, count);
+        return count;
     }
 }
@@ -1,37 +1,21 @@
 package movecalculators;
 
 import chess.ChessBoard;
-import chess.ChessMove;
 import chess.ChessPiece;
-import chess.ChessPosition;
-
-import java.util.Collection;
-import java.util.HashSet;
+import chess.PackedMove;
 
 public class KingMoveCalculator implements MoveCalculator {
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new HashSet<>();
-        ChessPiece myPiece = board.getPiece(myPosition);
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int count) {
+        ChessPiece myPiece = board.getPiece(square);
         if (myPiece == null) {
-            return moves;
+            return count;
         }
-
-        ChessPosition[] possiblePositions = new ChessPosition[]{
-                getSquareByOffset(myPosition, 1, 0),
-                getSquareByOffset(myPosition, 1, 1),
-                getSquareByOffset(myPosition, 0, 1),
-                getSquareByOffset(myPosition, -1, 1),
-                getSquareByOffset(myPosition, -1, 0),
-                getSquareByOffset(myPosition, -1, -1),
-                getSquareByOffset(myPosition, 0, -1),
-                getSquareByOffset(myPosition, 1, -1)
-        };
-        for (ChessPosition p : possiblePositions) {
-            if (p != null && checkSquare(p, board, myPiece.getTeamColor())) {
-                moves.add(new ChessMove(myPosition, p, null));
+        for (int target : MoveTables.kingTargets(square)) {
+            if (checkSquare(target, board, myPiece.getTeamColor())) {
+                moves[count++] = PackedMove.encode(square, target, null);
             }
         }
-        return moves;
+        return count;
     }
 }
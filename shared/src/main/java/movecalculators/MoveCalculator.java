@@ -1,72 +1,83 @@
 package movecalculators;
 
-import chess.ChessBoard;
-import chess.ChessGame;
-import chess.ChessMove;
-import chess.ChessPosition;
+import chess.*;
 
 import java.util.Collection;
 import java.util.HashSet;
 
 public interface MoveCalculator {
-    Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition);
+    /**
+     * Upper bound on the number of moves a single piece can have (a queen in the center has 27)
+     */
+    int MAX_PIECE_MOVES = 32;
 
     /**
-     * Checks a potential destination square to see if the move is possible.
-     * @param square the potential destination
+     * Writes every move of the piece on the given square into a caller-supplied buffer,
+     * without taking into account moves that leave the king in danger.
      * @param board the board context
-     * @param myColor the color of the piece being moved to the destination in question
-     * @return true if square is empty or contains a piece of color opposite myColor, false otherwise
+     * @param square the square of the piece to be moved (see {@link Bitboards})
+     * @param moves buffer the moves are written to, packed as described in {@link PackedMove}
+     * @param count the index in the buffer to start writing at
+     * @return the new number of moves in the buffer
      */
-    default boolean checkSquare(ChessPosition square, ChessBoard board, ChessGame.TeamColor myColor) {
-        if (square == null) {
-            return false;
+    int pieceMoves(ChessBoard board, int square, int[] moves, int count);
+
+    default Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
+        Collection<ChessMove> moves = new HashSet<>();
+        if (board.getPiece(myPosition) == null) {
+            return moves;
+        }
+        int[] buffer = new int[MAX_PIECE_MOVES];
+        int count = pieceMoves(board, Bitboards.square(myPosition.getRow(), myPosition.getColumn()), buffer, 0);
+        for (int i = 0; i < count; i++) {
+            moves.add(PackedMove.toChessMove(buffer[i]));
         }
-        return board.getPiece(square) == null || board.getPiece(square).getTeamColor() != myColor;
+        return moves;
     }
 
     /**
-     * Returns the square that is y rows and x columns away from square, where y = rowOffset and x = colOffset
-     * @param square the starting ChessPosition
-     * @param rowOffset y offset (positive is up and negative is down)
-     * @param colOffset x offset (positive is right and negative is left)
-     * @return new ChessPosition if exists, otherwise null
+     * Checks a potential destination square to see if the move is possible.
+     * @param square the potential destination, which must be on the board
+     * @param board the board context
+     * @param myColor the color of the piece being moved to the destination in question
+     * @return true if square is empty or contains a piece of color opposite myColor, false otherwise
      */
-    default ChessPosition getSquareByOffset(ChessPosition square, int rowOffset, int colOffset) {
-        int newRow = square.getRow() + rowOffset;
-        int newCol = square.getColumn() + colOffset;
-        if (newRow < 1 || newRow > 8 || newCol < 1 || newCol > 8) {
-            return null;
-        }
-        return new ChessPosition(newRow, newCol);
+    default boolean checkSquare(int square, ChessBoard board, ChessGame.TeamColor myColor) {
+        ChessPiece piece = board.getPiece(square);
+        return piece == null || piece.getTeamColor() != myColor;
     }
 
     /**
-     * Checks all squares in given direction, stops when the edge of the board or a piece of the same color is reached.
-     * @param myPosition position of piece to be moved
+     * Adds a move to every square in the given direction, stopping when the edge of the board or a piece is
+     * reached. The blocking square is included if it holds a piece of the other color.
+     * @param square square of piece to be moved
      * @param board board context
-     * @param rowOffset row offset direction (1 for up and -1 for down)
-     * @param colOffset col offset direction (1 for right and -1 for left)
-     * @return Collection of all valid positions in the given direction
+     * @param direction one of the directions defined in {@link Bitboards}, e.g. {@link Bitboards#UP}
+     * @param moves buffer the moves are written to
+     * @param count the index in the buffer to start writing at
+     * @return the new number of moves in the buffer
      */
-    default Collection<ChessPosition> getMovesInDirection(
-            ChessPosition myPosition,
+    default int getMovesInDirection(
+            int square,
             ChessBoard board,
-            int rowOffset,
-            int colOffset) {
-        Collection<ChessPosition> positions = new HashSet<>();
-        if (board.getPiece(myPosition) == null) {
-            return positions;
-        }
-        ChessGame.TeamColor myColor = board.getPiece(myPosition).getTeamColor();
-        ChessPosition currentPosition = getSquareByOffset(myPosition, rowOffset, colOffset);
-        while(currentPosition != null && board.getPiece(currentPosition) == null) {
-            positions.add(currentPosition);
-            currentPosition = getSquareByOffset(currentPosition, rowOffset, colOffset);
+            int direction,
+            int[] moves,
+            int count) {
+        ChessPiece myPiece = board.getPiece(square);
+        if (myPiece == null) {
+            return count;
         }
-        if (currentPosition != null && board.getPiece(currentPosition).getTeamColor() != myColor) {
-            positions.add(currentPosition);
+        for (int currentSquare : MoveTables.ray(square, direction)) {
+            ChessPiece blocker = board.getPiece(currentSquare);
+            if (blocker == null) {
+                moves[count++] = PackedMove.encode(square, currentSquare, null);
+            } else {
+                if (blocker.getTeamColor() != myPiece.getTeamColor()) {
+                    moves[count++] = PackedMove.encode(square, currentSquare, null);
+                }
+                break;
+            }
         }
-        return positions;
+        return count;
     }
 }
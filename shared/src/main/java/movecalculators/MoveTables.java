@@ -0,0 +1,83 @@
+package movecalculators;
+
+import chess.Bitboards;
+import chess.ChessGame;
+
+/**
+ * Destination squares precomputed for every square on the board, so the move calculators walk
+ * lists of squares instead of applying offsets and checking bounds on every call.
+ * The tables are read off the attack bitboards in {@link Bitboards}, and directions are those
+ * defined there, e.g. {@link Bitboards#UP}. The returned arrays are shared and must not be modified.
+ */
+final class MoveTables {
+    private static final int DIRECTION_COUNT = 8;
+
+    private static final int[][] KNIGHT_TARGETS = new int[64][];
+    private static final int[][] KING_TARGETS = new int[64][];
+    // indexed by square, then direction; each ray is ordered outward from the square
+    private static final int[][][] RAYS = new int[64][DIRECTION_COUNT][];
+    // indexed by color, then square; -1 where the pawn cannot advance
+    private static final int[][] PAWN_ADVANCES = new int[2][64];
+    private static final int[][][] PAWN_CAPTURES = new int[2][64][];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT_TARGETS[sq] = squares(Bitboards.knightAttacks(sq), true);
+            KING_TARGETS[sq] = squares(Bitboards.kingAttacks(sq), true);
+            for (int dir = 0; dir < DIRECTION_COUNT; dir++) {
+                RAYS[sq][dir] = squares(Bitboards.ray(dir, sq), Bitboards.isAscending(dir));
+            }
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                int[] forward = RAYS[sq][color == ChessGame.TeamColor.WHITE ? Bitboards.UP : Bitboards.DOWN];
+                PAWN_ADVANCES[color.ordinal()][sq] = forward.length == 0 ? -1 : forward[0];
+                PAWN_CAPTURES[color.ordinal()][sq] = squares(Bitboards.pawnAttacks(Bitboards.bit(sq), color), true);
+            }
+        }
+    }
+
+    private MoveTables() {
+    }
+
+    static int[] knightTargets(int square) {
+        return KNIGHT_TARGETS[square];
+    }
+
+    static int[] kingTargets(int square) {
+        return KING_TARGETS[square];
+    }
+
+    /**
+     * @return the squares from the given square to the edge of the board in a direction, nearest first
+     */
+    static int[] ray(int square, int direction) {
+        return RAYS[square][direction];
+    }
+
+    /**
+     * @return the square one step ahead of a pawn of the given color, or -1 if it is on the last row
+     */
+    static int pawnAdvance(ChessGame.TeamColor color, int square) {
+        return PAWN_ADVANCES[color.ordinal()][square];
+    }
+
+    /**
+     * @return the squares diagonally ahead of a pawn of the given color
+     */
+    static int[] pawnCaptures(ChessGame.TeamColor color, int square) {
+        return PAWN_CAPTURES[color.ordinal()][square];
+    }
+
+    /**
+     * @param ascending whether to list the squares from the lowest index up, rather than the highest down
+     * @return the squares set in a bitboard
+     */
+    private static int[] squares(long bitboard, boolean ascending) {
+        int[] squares = new int[Long.bitCount(bitboard)];
+        for (int i = 0; i < squares.length; i++) {
+            int square = Long.numberOfTrailingZeros(bitboard);
+            squares[ascending ? i : squares.length - 1 - i] = square;
+            bitboard &= bitboard - 1;
+        }
+        return squares;
+    }
+}
@@ -2,72 +2,55 @@ package movecalculators;
 
 import chess.*;
 
-import java.util.Collection;
-import java.util.HashSet;
-
 import static chess.ChessGame.TeamColor.*;
 import static chess.ChessPiece.PieceType.*;
 
 public class PawnMoveCalculator implements MoveCalculator {
-    private final Collection<ChessMove> moves = new HashSet<>();
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessPosition> possiblePositions = new HashSet<>();
-        ChessPiece myPiece = board.getPiece(myPosition);
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int count) {
+        ChessPiece myPiece = board.getPiece(square);
         if (myPiece == null) {
-            return new HashSet<>();
+            return count;
         }
-        ChessPosition diag1 = null;
-        ChessPosition diag2 = null;
-        if (myPiece.getTeamColor() == WHITE) {
-            // add the square directly above
-            possiblePositions.add(getSquareByOffset(myPosition, 1, 0));
-            // if the piece is on the starting row, add the square 2 squares above
-            if (myPosition.getRow() == 2 &&
-                    board.getPiece(getSquareByOffset(myPosition, 1, 0)) == null) {
-                possiblePositions.add(getSquareByOffset(myPosition, 2, 0));
-            }
-            // add the diagonal squares if they are occupied by enemy pieces
-            diag1 = getSquareByOffset(myPosition, 1, 1);
-            diag2 = getSquareByOffset(myPosition, 1, -1);
-        } else if (myPiece.getTeamColor() == BLACK) {
-            // add the square directly down
-            possiblePositions.add(getSquareByOffset(myPosition, -1, 0));
-            // if the piece is on its starting row, add the square 2 squares down
-            if (myPosition.getRow() == 7 &&
-                    board.getPiece(getSquareByOffset(myPosition, -1, 0)) == null) {
-                possiblePositions.add(getSquareByOffset(myPosition, -2, 0));
+        ChessGame.TeamColor myColor = myPiece.getTeamColor();
+        int startRow = myColor == WHITE ? 2 : 7;
+
+        // add the square directly ahead, and two squares ahead if the piece is on its starting row
+        int forward = MoveTables.pawnAdvance(myColor, square);
+        if (forward >= 0 && board.getPiece(forward) == null) {
+            count = addMove(square, forward, myColor, moves, count);
+            if (Bitboards.row(square) == startRow) {
+                int doubleForward = MoveTables.pawnAdvance(myColor, forward);
+                if (board.getPiece(doubleForward) == null) {
+                    count = addMove(square, doubleForward, myColor, moves, count);
+                }
             }
-            // add the diagonal squares if they are occupied by enemy pieces
-            diag1 = getSquareByOffset(myPosition, -1, 1);
-            diag2 = getSquareByOffset(myPosition, -1, -1);
-        }
-        if (diag1 != null &&
-                board.getPiece(diag1) != null &&
-                board.getPiece(diag1).getTeamColor() != myPiece.getTeamColor()) {
-            addMove(myPosition, diag1, myPiece.getTeamColor());
         }
-        if (diag2 != null &&
-                board.getPiece(diag2) != null &&
-                board.getPiece(diag2).getTeamColor() != myPiece.getTeamColor()) {
-            addMove(myPosition, diag2, myPiece.getTeamColor());
+        // add the diagonal squares if they are occupied by enemy pieces
+        for (int target : MoveTables.pawnCaptures(myColor, square)) {
+            count = addCapture(board, square, target, myColor, moves, count);
         }
-        for (ChessPosition p : possiblePositions) {
-            if (p != null && board.getPiece(p) == null) {
-                addMove(myPosition, p, myPiece.getTeamColor());
-            }
+        return count;
+    }
+
+    private int addCapture(ChessBoard board, int start, int end, ChessGame.TeamColor myColor, int[] moves, int count) {
+        ChessPiece target = board.getPiece(end);
+        if (target != null && target.getTeamColor() != myColor) {
+            count = addMove(start, end, myColor, moves, count);
         }
-        return moves;
+        return count;
     }
 
-    private void addMove(ChessPosition start, ChessPosition end, ChessGame.TeamColor myColor) {
-        if ((myColor == WHITE && end.getRow() == 8) || (myColor == BLACK && end.getRow() == 1)) {
-            moves.add(new ChessMove(start, end, QUEEN));
-            moves.add(new ChessMove(start, end, ROOK));
-            moves.add(new ChessMove(start, end, BISHOP));
-            moves.add(new ChessMove(start, end, KNIGHT));
+    private int addMove(int start, int end, ChessGame.TeamColor myColor, int[] moves, int count) {
+        int endRow = Bitboards.row(end);
+        if ((myColor == WHITE && endRow == 8) || (myColor == BLACK && endRow == 1)) {
+            moves[count++] = PackedMove.encode(start, end, QUEEN);
+            moves[count++] = PackedMove.encode(start, end, ROOK);
+            moves[count++] = PackedMove.encode(start, end, BISHOP);
+            moves[count++] = PackedMove.encode(start, end, KNIGHT);
         } else {
-            moves.add(new ChessMove(start, end, null));
+            moves[count++] = PackedMove.encode(start, end, null);
         }
+        return count;
     }
 }
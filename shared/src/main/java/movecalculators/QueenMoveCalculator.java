@@ -1,49 +1,27 @@
 package movecalculators;
 
+import chess.Bitboards;
 import chess.ChessBoard;
-import chess.ChessMove;
-import chess.ChessPosition;
-
-import java.util.Collection;
-import java.util.HashSet;
 
 public class QueenMoveCalculator implements MoveCalculator {
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new HashSet<>();
-
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int count) {
         // moves upward
-        for (ChessPosition p : getMovesInDirection(myPosition, board, 1, 0)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
+        count = getMovesInDirection(square, board, Bitboards.UP, moves, count);
         // moves to top right
-        for (ChessPosition p : getMovesInDirection(myPosition, board, 1, 1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
+        count = getMovesInDirection(square, board, Bitboards.UP_RIGHT, moves, count);
         // moves to right
-        for (ChessPosition p : getMovesInDirection(myPosition, board, 0, 1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
+        count = getMovesInDirection(square, board, Bitboards.RIGHT, moves, count);
         // moves to bottom right
-        for (ChessPosition p : getMovesInDirection(myPosition, board, -1, 1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
+        count = getMovesInDirection(square, board, Bitboards.DOWN_RIGHT, moves, count);
         // moves downward
-        for (ChessPosition p : getMovesInDirection(myPosition, board, -1, 0)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
+        count = getMovesInDirection(square, board, Bitboards.DOWN, moves, count);
         // moves to bottom left
-        for (ChessPosition p : getMovesInDirection(myPosition, board, -1, -1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
+        count = getMovesInDirection(square, board, Bitboards.DOWN_LEFT, moves, count);
         // moves to left
-        for (ChessPosition p : getMovesInDirection(myPosition, board, 0, -1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
+        count = getMovesInDirection(square, board, Bitboards.LEFT, moves, count);
         // moves to upper left
-        for (ChessPosition p : getMovesInDirection(myPosition, board, 1, -1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
-        return moves;
+        count = getMovesInDirection(square, board, Bitboards.UP_LEFT, moves, count);
+        return count;
     }
 }
@@ -1,32 +1,19 @@
 package movecalculators;
 
+import chess.Bitboards;
 import chess.ChessBoard;
-import chess.ChessMove;
-import chess.ChessPosition;
-
-import java.util.Collection;
-import java.util.HashSet;
 
 public class RookMoveCalculator implements MoveCalculator {
     @Override
-    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> moves = new HashSet<>();
+    public int pieceMoves(ChessBoard board, int square, int[] moves, int count) {
         // moves upward
-        for (ChessPosition p : getMovesInDirection(myPosition, board, 1, 0)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
+        count = getMovesInDirection(square, board, Bitboards.UP, moves, count);
         // moves to the right
-        for (ChessPosition p : getMovesInDirection(myPosition, board, 0, 1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
+        count = getMovesInDirection(square, board, Bitboards.RIGHT, moves, count);
         // moves downward
-        for (ChessPosition p : getMovesInDirection(myPosition, board, -1, 0)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
+        count = getMovesInDirection(square, board, Bitboards.DOWN, moves, count);
         // moves to the left
-        for (ChessPosition p : getMovesInDirection(myPosition, board, 0, -1)) {
-            moves.add(new ChessMove(myPosition, p, null));
-        }
-        return moves;
+        count = getMovesInDirection(square, board, Bitboards.LEFT, moves, count);
+        return count;
     }
 }
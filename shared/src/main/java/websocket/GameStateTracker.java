@@ -0,0 +1,85 @@
+package websocket;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+import websocket.messages.MoveMessage;
+import websocket.messages.ServerMessage;
+
+/**
+ * Keeps a client's copy of a game up to date from LOAD_GAME and MOVE messages.
+ * <p>
+ * A MOVE message can only be applied to the position right before it. If one is missed, or no
+ * LOAD_GAME has been received yet, {@link #applyMove} returns false and the client should send
+ * CONNECT again to get a full LOAD_GAME.
+ * <p>
+ * The tracker also remembers the sequence number of the last message received for the game,
+ * which the client passes to RESUME when it reconnects.
+ */
+public class GameStateTracker {
+    private ChessGame game;
+    private ChessGame.GameStatus status;
+    private Long lastSequence;
+
+    /**
+     * Replaces the tracked game with a full copy sent by the server
+     */
+    public void loadGame(ChessGame game) {
+        this.game = game;
+        this.status = game.evaluateStatus();
+    }
+
+    /**
+     * @return false if the move could not be applied and the game must be loaded again
+     */
+    public boolean applyMove(MoveMessage message) {
+        if (game == null) {
+            return false;
+        }
+        if (message.getPly() <= game.getPly()) {
+            // already reflected in the tracked game, e.g. by a LOAD_GAME sent after the move
+            return true;
+        }
+        if (message.getPly() != game.getPly() + 1) {
+            return false;
+        }
+        ChessGame updated = game.copy();
+        try {
+            updated.makeMove(message.getMove());
+        } catch (InvalidMoveException ex) {
+            return false;
+        }
+        game = updated;
+        status = message.getStatus();
+        return true;
+    }
+
+    /**
+     * Records the sequence number of a message received for the game, if it has one
+     */
+    public void received(ServerMessage message) {
+        if (message.getSequence() != null) {
+            lastSequence = message.getSequence();
+        }
+    }
+
+    /**
+     * @return the sequence number of the last message received, or null if none had one
+     */
+    public Long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return the tracked game, or null if no game has been loaded
+     */
+    public ChessGame getGame() {
+        return game;
+    }
+
+    /**
+     * @return the state of the tracked game as last reported by the server, or null if no game has been loaded
+     */
+    public ChessGame.GameStatus getStatus() {
+        return status;
+    }
+}
@@ -1,7 +1,19 @@
 package websocket.commands;
 
 public class ConnectCommand extends UserGameCommand {
+    // whether the client wants a MOVE message instead of a full LOAD_GAME after each move
+    private final Boolean moveDeltas;
+
     public ConnectCommand(String authToken, Integer gameID) {
+        this(authToken, gameID, false);
+    }
+
+    public ConnectCommand(String authToken, Integer gameID, boolean moveDeltas) {
         super(CommandType.CONNECT, authToken, gameID);
+        this.moveDeltas = moveDeltas;
+    }
+
+    public boolean wantsMoveDeltas() {
+        return Boolean.TRUE.equals(moveDeltas);
     }
 }
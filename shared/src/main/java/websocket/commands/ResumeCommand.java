@@ -0,0 +1,28 @@
+package websocket.commands;
+
+/**
+ * Sent instead of CONNECT by a client reconnecting to a game, so that it is only sent the
+ * messages it missed rather than the whole game, if the server still has them.
+ */
+public class ResumeCommand extends UserGameCommand {
+    private final long lastSequence;
+    private final Boolean moveDeltas;
+
+    /**
+     * @param lastSequence the sequence number of the last message received for the game
+     * @param moveDeltas   whether the client wants MOVE messages, as with CONNECT
+     */
+    public ResumeCommand(String authToken, Integer gameID, long lastSequence, boolean moveDeltas) {
+        super(CommandType.RESUME, authToken, gameID);
+        this.lastSequence = lastSequence;
+        this.moveDeltas = moveDeltas;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public boolean wantsMoveDeltas() {
+        return Boolean.TRUE.equals(moveDeltas);
+    }
+}
@@ -0,0 +1,38 @@
+package websocket.messages;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+/**
+ * Sent instead of LOAD_GAME after a move to clients that asked for move deltas on CONNECT.
+ * The client applies the move to its own copy of the game.
+ */
+public class MoveMessage extends ServerMessage {
+    private final ChessMove move;
+    private final int ply;
+    private final ChessGame.GameStatus status;
+
+    /**
+     * @param move   the move that was made
+     * @param ply    the number of moves made in the game after this one
+     * @param status the state of the game after the move, for the team whose turn it now is
+     */
+    public MoveMessage(ChessMove move, int ply, ChessGame.GameStatus status) {
+        super(ServerMessageType.MOVE);
+        this.move = move;
+        this.ply = ply;
+        this.status = status;
+    }
+
+    public ChessMove getMove() {
+        return move;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public ChessGame.GameStatus getStatus() {
+        return status;
+    }
+}
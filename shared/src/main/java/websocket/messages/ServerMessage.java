@@ -10,11 +10,14 @@ import java.util.Objects;
  */
 public class ServerMessage {
     ServerMessageType serverMessageType;
+    // position of the message in its game's stream of broadcasts, or null if it was only sent to one client
+    private Long sequence;
 
     public enum ServerMessageType {
         LOAD_GAME,
         ERROR,
-        NOTIFICATION
+        NOTIFICATION,
+        MOVE
     }
 
     public ServerMessage(ServerMessageType type) {
@@ -25,6 +28,18 @@ public class ServerMessage {
         return this.serverMessageType;
     }
 
+    /**
+     * @return the sequence number of the last broadcast for the game that this message reflects,
+     * which a client can pass to RESUME after reconnecting, or null if there is none
+     */
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
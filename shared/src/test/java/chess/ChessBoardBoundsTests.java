@@ -0,0 +1,18 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ChessBoardBoundsTests {
+
+    @Test
+    @DisplayName("Reject Pieces Added Off The Board")
+    public void addOffBoard() {
+        ChessBoard board = new ChessBoard();
+        ChessPiece rook = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> board.addPiece(new ChessPosition(1, 9), rook));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> board.addPiece(new ChessPosition(0, 1), rook));
+        Assertions.assertNull(board.getPiece(new ChessPosition(2, 1)), "Off-board piece was placed on a2");
+    }
+}
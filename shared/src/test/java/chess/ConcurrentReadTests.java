@@ -0,0 +1,48 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ConcurrentReadTests {
+
+    @Test
+    @DisplayName("Read A Game From Several Threads")
+    public void concurrentReads() throws Exception {
+        // a middlegame with checks, pins and captures available to both sides
+        ChessGame game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w");
+        ChessGame reference = game.copy();
+        int expectedMoves = reference.validMoves(ChessGame.TeamColor.WHITE, new int[ChessGame.MAX_MOVES], 0);
+        long expectedKey = reference.getZobristKey();
+
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(threads.submit(() -> {
+                    int[] moves = new int[ChessGame.MAX_MOVES];
+                    for (int i = 0; i < 500; i++) {
+                        if (game.validMoves(ChessGame.TeamColor.WHITE, moves, 0) != expectedMoves
+                                || game.isInCheckmate(ChessGame.TeamColor.BLACK)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assertions.assertTrue(result.get(), "A thread saw the wrong moves");
+            }
+        } finally {
+            threads.shutdown();
+        }
+        Assertions.assertEquals(reference, game, "Reading the game changed its board");
+        Assertions.assertEquals(expectedKey, game.getZobristKey(), "Reading the game changed its key");
+    }
+}
@@ -0,0 +1,55 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GameCodecTests {
+
+    @Test
+    @DisplayName("Encode Starting Position")
+    public void encodeStart() {
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w 0 0",
+                GameCodec.encode(new ChessGame()), "Wrong encoding of a new game");
+    }
+
+    @Test
+    @DisplayName("Round Trip")
+    public void roundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.setOver();
+
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        Assertions.assertEquals(game, decoded, "Decoded game does not match");
+        Assertions.assertTrue(decoded.isOver(), "Over flag was lost");
+        Assertions.assertEquals(1, decoded.getPly(), "Move count was lost");
+    }
+
+    @Test
+    @DisplayName("Decode Without Move Count")
+    public void withoutPly() {
+        ChessGame decoded = GameCodec.decode("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w 0");
+        Assertions.assertEquals(new ChessGame(), decoded, "Game without a move count was not decoded");
+        Assertions.assertEquals(0, decoded.getPly(), "Missing move count should be 0");
+    }
+
+    @Test
+    @DisplayName("Decode Legacy JSON")
+    public void legacyJson() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+
+        ChessGame decoded = GameCodec.decode(new Gson().toJson(game));
+        Assertions.assertEquals(game, decoded, "JSON game was not decoded");
+        Assertions.assertEquals(game.getZobristKey(), decoded.getZobristKey(), "Derived state was not rebuilt");
+    }
+
+    @Test
+    @DisplayName("Reject Malformed Input")
+    public void malformed() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode("8/8/8/8/8/8/8/8 w"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode("8/8/8/8/8/8/8/8 w x"));
+    }
+}
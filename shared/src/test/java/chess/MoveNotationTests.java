@@ -0,0 +1,32 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MoveNotationTests {
+
+    @Test
+    @DisplayName("Format Moves")
+    public void format() {
+        Assertions.assertEquals("e2e4",
+                MoveNotation.format(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null)));
+        Assertions.assertEquals("b7a8n", MoveNotation.format(
+                new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 1), ChessPiece.PieceType.KNIGHT)));
+    }
+
+    @Test
+    @DisplayName("Round Trip")
+    public void roundTrip() {
+        ChessMove move = new ChessMove(new ChessPosition(2, 8), new ChessPosition(1, 8), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals(move, MoveNotation.parse(MoveNotation.format(move)), "Parsed move does not match");
+    }
+
+    @Test
+    @DisplayName("Reject Malformed Input")
+    public void malformed() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MoveNotation.parse("e2e"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MoveNotation.parse("e2e9"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MoveNotation.parse("e7e8k"));
+    }
+}
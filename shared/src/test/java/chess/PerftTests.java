@@ -0,0 +1,78 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+/**
+ * Node counts for well-known perft positions. Positions and depths are chosen so that castling and
+ * en passant, which the game does not implement, never come up; the one exception is noted below.
+ */
+public class PerftTests {
+
+    private static void assertPerft(String fen, int depth, long expectedNodes) {
+        ChessGame game = Fen.parse(fen);
+        ChessBoard original = game.getBoard().copy();
+        Assertions.assertEquals(expectedNodes, Perft.perft(game, depth), "Wrong node count for " + fen);
+        Assertions.assertEquals(original, game.getBoard(), "Perft did not restore the board");
+    }
+
+    @Test
+    @DisplayName("Starting Position")
+    public void startingPosition() {
+        assertPerft(Fen.STARTING_POSITION, 1, 20);
+        assertPerft(Fen.STARTING_POSITION, 2, 400);
+        assertPerft(Fen.STARTING_POSITION, 3, 8902);
+        assertPerft(Fen.STARTING_POSITION, 4, 197281);
+    }
+
+    @Test
+    @DisplayName("Middlegame With Pins")
+    public void middlegame() {
+        String fen = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+        assertPerft(fen, 1, 46);
+        assertPerft(fen, 2, 2079);
+        assertPerft(fen, 3, 89890);
+    }
+
+    @Test
+    @DisplayName("Rook and Pawn Endgame")
+    public void rookEndgame() {
+        String fen = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+        assertPerft(fen, 1, 14);
+        assertPerft(fen, 2, 191);
+        // the published count of 2812 includes two en passant captures
+        assertPerft(fen, 3, 2810);
+    }
+
+    @Test
+    @DisplayName("Promotions")
+    public void promotions() {
+        assertPerft("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1", 4, 182838);
+        assertPerft("4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 6, 217342);
+        assertPerft("8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 92683);
+    }
+
+    @Test
+    @DisplayName("Checks, Checkmates and Stalemates")
+    public void gameEndings() {
+        assertPerft("K1k5/8/P7/8/8/8/8/8 w - - 0 1", 6, 2217);
+        assertPerft("8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 7, 567584);
+        assertPerft("8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 4, 23527);
+        assertPerft("8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 5, 1004658);
+    }
+
+    @Test
+    @DisplayName("Divide Matches Perft")
+    public void divide() {
+        ChessGame game = Fen.parse(Fen.STARTING_POSITION);
+        Map<String, Long> results = Perft.divide(game, 3);
+
+        Assertions.assertEquals(20, results.size(), "Wrong number of root moves");
+        Assertions.assertEquals(600, results.get("e2e4"), "Wrong node count below e2e4");
+        Assertions.assertEquals(8902, results.values().stream().mapToLong(Long::longValue).sum(),
+                "Divide totals do not match perft");
+    }
+}
@@ -0,0 +1,48 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ZobristTests {
+
+    @Test
+    @DisplayName("Incremental Key Matches Rebuilt Key")
+    public void incrementalKey() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        long startKey = game.getZobristKey();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 4), new ChessPosition(5, 4), null));
+        game.makeMove(new ChessMove(new ChessPosition(4, 5), new ChessPosition(5, 4), null));
+
+        // a board built from scratch with the same pieces must hash the same
+        ChessGame rebuilt = Fen.parse("rnbqkbnr/ppp1pppp/8/3P4/8/8/PPPP1PPP/RNBQKBNR b - - 0 2");
+        Assertions.assertEquals(rebuilt, game, "Games should be equal");
+        Assertions.assertEquals(rebuilt.getZobristKey(), game.getZobristKey(), "Incremental key drifted");
+        Assertions.assertNotEquals(startKey, game.getZobristKey(), "Key did not change after moves");
+    }
+
+    @Test
+    @DisplayName("Side To Move Changes Key")
+    public void sideToMove() {
+        ChessGame white = Fen.parse(Fen.STARTING_POSITION);
+        ChessGame black = Fen.parse(Fen.STARTING_POSITION);
+        black.setTeamTurn(ChessGame.TeamColor.BLACK);
+
+        Assertions.assertEquals(white.getBoard().getZobristKey(), black.getBoard().getZobristKey(),
+                "Board keys should not depend on the side to move");
+        Assertions.assertNotEquals(white.getZobristKey(), black.getZobristKey(),
+                "Game keys should depend on the side to move");
+    }
+
+    @Test
+    @DisplayName("Make And Unmake Restore Key")
+    public void makeUnmake() {
+        ChessBoard board = Fen.parse(Fen.STARTING_POSITION).getBoard();
+        long key = board.getZobristKey();
+        int undo = board.makeMove(PackedMove.encode(Bitboards.square(1, 2), Bitboards.square(3, 3), null));
+        Assertions.assertNotEquals(key, board.getZobristKey(), "Key did not change after move");
+        board.unmakeMove(undo);
+        Assertions.assertEquals(key, board.getZobristKey(), "Key was not restored after unmake");
+    }
+}
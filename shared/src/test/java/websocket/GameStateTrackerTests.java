@@ -0,0 +1,67 @@
+package websocket;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import websocket.messages.ErrorMessage;
+import websocket.messages.MoveMessage;
+
+public class GameStateTrackerTests {
+    private static final ChessMove E4 = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+    private static final ChessMove E5 = new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null);
+
+    @Test
+    @DisplayName("Apply Moves In Sequence")
+    public void applyInSequence() throws InvalidMoveException {
+        GameStateTracker tracker = new GameStateTracker();
+        tracker.loadGame(new ChessGame());
+        Assertions.assertTrue(tracker.applyMove(new MoveMessage(E4, 1, ChessGame.GameStatus.ONGOING)));
+        Assertions.assertTrue(tracker.applyMove(new MoveMessage(E5, 2, ChessGame.GameStatus.ONGOING)));
+
+        ChessGame expected = new ChessGame();
+        expected.makeMove(E4);
+        expected.makeMove(E5);
+        Assertions.assertEquals(expected, tracker.getGame(), "Tracked game does not match");
+        Assertions.assertEquals(2, tracker.getGame().getPly(), "Wrong move count");
+    }
+
+    @Test
+    @DisplayName("Detect Gap")
+    public void gap() {
+        GameStateTracker tracker = new GameStateTracker();
+        Assertions.assertFalse(tracker.applyMove(new MoveMessage(E4, 1, ChessGame.GameStatus.ONGOING)),
+                "Move applied without a loaded game");
+
+        tracker.loadGame(new ChessGame());
+        Assertions.assertFalse(tracker.applyMove(new MoveMessage(E5, 2, ChessGame.GameStatus.ONGOING)),
+                "Move applied after a missed move");
+        Assertions.assertEquals(new ChessGame(), tracker.getGame(), "Game changed after a gap");
+    }
+
+    @Test
+    @DisplayName("Ignore Stale Move")
+    public void stale() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(E4);
+        GameStateTracker tracker = new GameStateTracker();
+        tracker.loadGame(game);
+
+        Assertions.assertTrue(tracker.applyMove(new MoveMessage(E4, 1, ChessGame.GameStatus.ONGOING)),
+                "Move already in the loaded game should be ignored");
+        Assertions.assertEquals(1, tracker.getGame().getPly(), "Stale move was applied again");
+    }
+
+    @Test
+    @DisplayName("Remember Last Sequence")
+    public void lastSequence() {
+        GameStateTracker tracker = new GameStateTracker();
+        Assertions.assertNull(tracker.getLastSequence(), "No message has been received");
+
+        MoveMessage move = new MoveMessage(E4, 1, ChessGame.GameStatus.ONGOING);
+        move.setSequence(42L);
+        tracker.received(move);
+        tracker.received(new ErrorMessage("Error: out of turn"));
+        Assertions.assertEquals(42L, tracker.getLastSequence(), "Unsequenced message changed the last sequence");
+    }
+}